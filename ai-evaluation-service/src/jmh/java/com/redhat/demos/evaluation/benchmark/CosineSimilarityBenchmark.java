@@ -0,0 +1,95 @@
+package com.redhat.demos.evaluation.benchmark;
+
+import com.redhat.demos.evaluation.index.PackedVectors;
+import com.redhat.demos.evaluation.index.VectorKernel;
+import com.redhat.demos.evaluation.index.VectorKernels;
+import com.redhat.demos.evaluation.service.VectorSimilarityService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the original scalar cosine similarity loop with the kernel-based implementations
+ * at common embedding dimensions, and the service entry point that includes dimension validation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class CosineSimilarityBenchmark {
+
+    @Param({"384", "1536"})
+    int dimension;
+
+    float[] vectorA;
+    float[] vectorB;
+    double normA;
+    double normB;
+    VectorKernel simd;
+    VectorKernel scalar;
+    VectorSimilarityService similarityService;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        vectorA = new float[dimension];
+        vectorB = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vectorA[i] = random.nextFloat() * 2 - 1;
+            vectorB[i] = random.nextFloat() * 2 - 1;
+        }
+        normA = PackedVectors.norm(vectorA, 0, dimension);
+        normB = PackedVectors.norm(vectorB, 0, dimension);
+        simd = VectorKernels.preferred();
+        scalar = VectorKernels.scalar();
+        similarityService = new VectorSimilarityService();
+    }
+
+    @Benchmark
+    public double originalLoop() {
+        double dotProduct = 0.0;
+        double sumA = 0.0;
+        double sumB = 0.0;
+        for (int i = 0; i < vectorA.length; i++) {
+            dotProduct += vectorA[i] * vectorB[i];
+            sumA += vectorA[i] * vectorA[i];
+            sumB += vectorB[i] * vectorB[i];
+        }
+        return dotProduct / (Math.sqrt(sumA) * Math.sqrt(sumB));
+    }
+
+    @Benchmark
+    public double scalarKernel() {
+        return cosine(scalar);
+    }
+
+    @Benchmark
+    public double simdKernel() {
+        return cosine(simd);
+    }
+
+    @Benchmark
+    public double simdKernelPrecomputedNorms() {
+        return simd.dot(vectorA, 0, vectorB, 0, dimension) / (normA * normB);
+    }
+
+    @Benchmark
+    public double similarityService() {
+        return similarityService.calculateCosineSimilarity(vectorA, vectorB);
+    }
+
+    @Benchmark
+    public double similarityServicePrecomputedNorms() {
+        return similarityService.calculateCosineSimilarity(vectorA, normA, vectorB, normB);
+    }
+
+    private double cosine(VectorKernel kernel) {
+        double dotProduct = kernel.dot(vectorA, 0, vectorB, 0, dimension);
+        double sumA = kernel.sumOfSquares(vectorA, 0, dimension);
+        double sumB = kernel.sumOfSquares(vectorB, 0, dimension);
+        return dotProduct / (Math.sqrt(sumA) * Math.sqrt(sumB));
+    }
+}
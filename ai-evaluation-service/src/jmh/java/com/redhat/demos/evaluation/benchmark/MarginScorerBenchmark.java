@@ -0,0 +1,93 @@
+package com.redhat.demos.evaluation.benchmark;
+
+import com.redhat.demos.evaluation.index.ExactVectorIndex;
+import com.redhat.demos.evaluation.index.MarginScore;
+import com.redhat.demos.evaluation.index.MarginScorer;
+import com.redhat.demos.evaluation.index.PackedVectors;
+import com.redhat.demos.evaluation.index.SimilarityMatch;
+import com.redhat.demos.evaluation.index.VectorKernel;
+import com.redhat.demos.evaluation.index.VectorKernels;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares negative-only scoring with margin scoring, both as one fused scan over negatives and
+ * positives and as two separate scans.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class MarginScorerBenchmark {
+
+    private static final int DIMENSION = 384;
+
+    @Param({"100", "1000", "10000"})
+    int negatives;
+
+    @Param({"100", "1000"})
+    int positives;
+
+    ExactVectorIndex negativeIndex;
+    ExactVectorIndex positiveIndex;
+    MarginScorer marginScorer;
+    float[] query;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(11);
+        VectorKernel kernel = VectorKernels.preferred();
+
+        PackedVectors negativeVectors = randomVectors(random, negatives, "negative");
+        PackedVectors positiveVectors = randomVectors(random, positives, "positive");
+
+        negativeIndex = new ExactVectorIndex(negativeVectors, kernel);
+        positiveIndex = new ExactVectorIndex(positiveVectors, kernel);
+        marginScorer = MarginScorer.build(negativeVectors, positiveVectors, kernel);
+        query = randomVector(random);
+    }
+
+    @Benchmark
+    public SimilarityMatch negativeOnly() {
+        return negativeIndex.findMostSimilar(query);
+    }
+
+    @Benchmark
+    public MarginScore fusedMargin() {
+        return marginScorer.score(query);
+    }
+
+    @Benchmark
+    public void separateScans(Blackhole blackhole) {
+        blackhole.consume(negativeIndex.findMostSimilar(query));
+        blackhole.consume(positiveIndex.findMostSimilar(query));
+    }
+
+    private static PackedVectors randomVectors(Random random, int count, String prefix) {
+        List<float[]> rows = new ArrayList<>(count);
+        List<UUID> ids = new ArrayList<>(count);
+        List<String> labels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(randomVector(random));
+            ids.add(UUID.randomUUID());
+            labels.add(prefix + "-" + i);
+        }
+        return PackedVectors.of(DIMENSION, rows, ids, labels);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
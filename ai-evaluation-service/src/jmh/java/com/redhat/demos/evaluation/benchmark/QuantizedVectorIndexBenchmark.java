@@ -0,0 +1,117 @@
+package com.redhat.demos.evaluation.benchmark;
+
+import com.redhat.demos.evaluation.index.DecisionAgreement;
+import com.redhat.demos.evaluation.index.ExactVectorIndex;
+import com.redhat.demos.evaluation.index.PackedVectors;
+import com.redhat.demos.evaluation.index.QuantizedVectorIndex;
+import com.redhat.demos.evaluation.index.SimilarityMatch;
+import com.redhat.demos.evaluation.index.VectorKernel;
+import com.redhat.demos.evaluation.index.VectorKernels;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures search latency of the exact scan and the quantized scans with exact re-ranking, and reports
+ * during setup the memory of each quantized copy and its decision agreement with the exact scan for
+ * queries near the 0.85 similarity threshold.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class QuantizedVectorIndexBenchmark {
+
+    private static final int DIMENSION = 384;
+    private static final int QUERIES = 512;
+    private static final double THRESHOLD = 0.85;
+    private static final double BOUNDARY_MARGIN = 0.02;
+
+    @Param({"10000", "100000"})
+    int size;
+
+    @Param({"8", "32", "128"})
+    int rerank;
+
+    ExactVectorIndex exact;
+    QuantizedVectorIndex int8;
+    QuantizedVectorIndex binary;
+    float[][] queries;
+    int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        VectorKernel kernel = VectorKernels.preferred();
+
+        List<float[]> rows = new ArrayList<>(size);
+        List<UUID> ids = new ArrayList<>(size);
+        List<String> labels = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(randomVector(random));
+            ids.add(UUID.randomUUID());
+            labels.add("vector-" + i);
+        }
+        PackedVectors vectors = PackedVectors.of(DIMENSION, rows, ids, labels);
+
+        // Each query sits at a cosine similarity between 0.80 and 0.90 to one indexed row
+        queries = new float[QUERIES][];
+        for (int q = 0; q < QUERIES; q++) {
+            float[] base = rows.get(random.nextInt(size));
+            float[] noise = randomVector(random);
+            double cosine = THRESHOLD - 0.05 + random.nextDouble() * 0.10;
+            double baseNorm = PackedVectors.norm(base, 0, DIMENSION);
+            double noiseNorm = PackedVectors.norm(noise, 0, DIMENSION);
+            queries[q] = new float[DIMENSION];
+            for (int i = 0; i < DIMENSION; i++) {
+                queries[q][i] = (float) (cosine * base[i] / baseNorm + Math.sqrt(1 - cosine * cosine) * noise[i] / noiseNorm);
+            }
+        }
+
+        exact = new ExactVectorIndex(vectors, kernel);
+        int8 = QuantizedVectorIndex.build(vectors, kernel, QuantizedVectorIndex.Quantization.INT8, rerank);
+        binary = QuantizedVectorIndex.build(vectors, kernel, QuantizedVectorIndex.Quantization.BINARY, rerank);
+
+        List<float[]> queryList = List.of(queries);
+        long floatBytes = (long) size * DIMENSION * Float.BYTES;
+        for (QuantizedVectorIndex index : List.of(int8, binary)) {
+            System.out.printf("%n%s size=%d rerank=%d: %d bytes (%.1f%% of float32), %s%n",
+                index.name(), size, rerank, index.quantizedBytes(), 100.0 * index.quantizedBytes() / floatBytes,
+                DecisionAgreement.measure(index, exact, queryList, THRESHOLD, BOUNDARY_MARGIN));
+        }
+    }
+
+    @Benchmark
+    public SimilarityMatch exactScan() {
+        return exact.findMostSimilar(nextQuery());
+    }
+
+    @Benchmark
+    public SimilarityMatch int8Scan() {
+        return int8.findMostSimilar(nextQuery());
+    }
+
+    @Benchmark
+    public SimilarityMatch binaryScan() {
+        return binary.findMostSimilar(nextQuery());
+    }
+
+    private float[] nextQuery() {
+        next = (next + 1) % QUERIES;
+        return queries[next];
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,130 @@
+package com.redhat.demos.evaluation.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.redhat.demos.evaluation.dto.ThoughtEvent;
+import com.redhat.demos.evaluation.service.EvaluationDeduplicator;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Jackson deserialization of a thought event as the consumer receives it, from a String
+ * through the shared ObjectMapper, against a pre-built ObjectReader and raw UTF-8 bytes.
+ * Also compares the serialized Thought entity the producer used to publish with the versioned event
+ * payload, writing and reading each, and filtering an update from its record headers alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThoughtEventBenchmark {
+
+    // Configured like the Quarkus-managed mapper: JSR-310 support, ISO-8601 dates
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Param({"100", "2000"})
+    int contentLength;
+
+    String json;
+    byte[] jsonBytes;
+    String envelopeJson;
+    ObjectReader reader;
+    ThoughtEvent entityEvent;
+    ThoughtEvent envelopeEvent;
+    ObjectWriter envelopeWriter;
+    RecordHeaders headers;
+
+    @Setup
+    public void setup() throws Exception {
+        ThoughtEvent event = new ThoughtEvent();
+        event.setThoughtId(UUID.randomUUID());
+        event.setThoughtContent("x".repeat(contentLength));
+        event.setAuthor("Benchmark Author");
+        event.setAuthorBio("Writes thoughts for benchmarks");
+        event.setStatus("IN_REVIEW");
+        event.setCreatedAt(LocalDateTime.now());
+        event.setUpdatedAt(LocalDateTime.now());
+
+        event.setThumbsUp(0);
+        event.setThumbsDown(0);
+        entityEvent = event;
+
+        json = MAPPER.writeValueAsString(event);
+        jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        reader = MAPPER.readerFor(ThoughtEvent.class);
+
+        // The versioned payload drops the counters and entity timestamps and adds type, version and hash
+        ThoughtEvent envelope = new ThoughtEvent();
+        envelope.setVersion(1);
+        envelope.setEventType("CREATED");
+        envelope.setThoughtId(event.getThoughtId());
+        envelope.setThoughtContent(event.getThoughtContent());
+        envelope.setContentHash(EvaluationDeduplicator.contentHash(event.getThoughtContent()));
+        envelope.setAuthor(event.getAuthor());
+        envelope.setAuthorBio(event.getAuthorBio());
+        envelope.setStatus(event.getStatus());
+        envelope.setTimestamp(LocalDateTime.now());
+        envelopeEvent = envelope;
+        envelopeWriter = MAPPER.copy()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .writer();
+        envelopeJson = envelopeWriter.writeValueAsString(envelope);
+
+        headers = new RecordHeaders();
+        headers.add("thought-event-type", "UPDATED".getBytes(StandardCharsets.UTF_8));
+        headers.add("thought-content-hash", envelope.getContentHash().getBytes(StandardCharsets.UTF_8));
+        headers.add("thought-previous-content-hash", envelope.getContentHash().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public String writeEntity() throws Exception {
+        return MAPPER.writeValueAsString(entityEvent);
+    }
+
+    @Benchmark
+    public String writeEnvelope() throws Exception {
+        // The producer hashes the content for the payload and headers
+        envelopeEvent.setContentHash(EvaluationDeduplicator.contentHash(envelopeEvent.getThoughtContent()));
+        return envelopeWriter.writeValueAsString(envelopeEvent);
+    }
+
+    @Benchmark
+    public boolean filterFromHeaders() {
+        return "UPDATED".equals(new String(headers.lastHeader("thought-event-type").value(), StandardCharsets.UTF_8))
+            && Arrays.equals(headers.lastHeader("thought-content-hash").value(),
+                headers.lastHeader("thought-previous-content-hash").value());
+    }
+
+    @Benchmark
+    public ThoughtEvent mapperFromString() throws Exception {
+        return MAPPER.readValue(json, ThoughtEvent.class);
+    }
+
+    @Benchmark
+    public ThoughtEvent readerFromString() throws Exception {
+        return reader.readValue(json);
+    }
+
+    @Benchmark
+    public ThoughtEvent readerFromEnvelope() throws Exception {
+        return reader.readValue(envelopeJson);
+    }
+
+    @Benchmark
+    public ThoughtEvent readerFromBytes() throws Exception {
+        return reader.readValue(jsonBytes);
+    }
+}
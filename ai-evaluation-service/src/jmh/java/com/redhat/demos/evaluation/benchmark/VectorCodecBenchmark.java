@@ -0,0 +1,110 @@
+package com.redhat.demos.evaluation.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redhat.demos.evaluation.model.VectorEncoding;
+import com.redhat.demos.evaluation.util.VectorCodec;
+import com.redhat.demos.evaluation.util.VectorDataParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding and encoding a stored embedding as JSON text against the binary encodings.
+ * Decoding into a reused array models loading rows straight into packed index storage.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VectorCodecBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Param({"384", "1536"})
+    int dimension;
+
+    float[] vector;
+    float[] target;
+    String json;
+    byte[] float32;
+    byte[] float16;
+    byte[] int8;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = random.nextFloat() * 0.2f - 0.1f;
+        }
+        target = new float[dimension];
+        json = VectorDataParser.toJsonString(vector);
+        float32 = VectorCodec.encode(vector, VectorEncoding.FLOAT32);
+        float16 = VectorCodec.encode(vector, VectorEncoding.FLOAT16);
+        int8 = VectorCodec.encode(vector, VectorEncoding.INT8);
+    }
+
+    @Benchmark
+    public float[] decodeJson() {
+        return VectorDataParser.parseVectorData(json);
+    }
+
+    @Benchmark
+    public float[] decodeJsonInto() {
+        VectorDataParser.parseVectorData(json, target, 0);
+        return target;
+    }
+
+    @Benchmark
+    public float[] decodeJsonTree() throws Exception {
+        // The tree-based parse VectorDataParser used before it streamed tokens
+        JsonNode embedding = MAPPER.readTree(json).get("embedding");
+        float[] result = new float[embedding.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (float) embedding.get(i).asDouble();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public float[] decodeFloat32() {
+        return VectorCodec.decode(float32, VectorEncoding.FLOAT32);
+    }
+
+    @Benchmark
+    public float[] decodeFloat32Into() {
+        VectorCodec.decodeInto(float32, VectorEncoding.FLOAT32, target, 0);
+        return target;
+    }
+
+    @Benchmark
+    public float[] decodeFloat16Into() {
+        VectorCodec.decodeInto(float16, VectorEncoding.FLOAT16, target, 0);
+        return target;
+    }
+
+    @Benchmark
+    public float[] decodeInt8Into() {
+        VectorCodec.decodeInto(int8, VectorEncoding.INT8, target, 0);
+        return target;
+    }
+
+    @Benchmark
+    public String encodeJson() {
+        return VectorDataParser.toJsonString(vector);
+    }
+
+    @Benchmark
+    public byte[] encodeJsonBytes() {
+        return VectorDataParser.toJsonBytes(vector);
+    }
+
+    @Benchmark
+    public byte[] encodeFloat32() {
+        return VectorCodec.encode(vector, VectorEncoding.FLOAT32);
+    }
+}
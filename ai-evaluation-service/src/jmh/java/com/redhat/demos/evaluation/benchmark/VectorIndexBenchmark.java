@@ -0,0 +1,107 @@
+package com.redhat.demos.evaluation.benchmark;
+
+import com.redhat.demos.evaluation.index.ExactVectorIndex;
+import com.redhat.demos.evaluation.index.HnswParameters;
+import com.redhat.demos.evaluation.index.HnswVectorIndex;
+import com.redhat.demos.evaluation.index.PackedVectors;
+import com.redhat.demos.evaluation.index.SimilarityMatch;
+import com.redhat.demos.evaluation.index.VectorKernel;
+import com.redhat.demos.evaluation.index.VectorKernels;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures search latency of the exact scan and HNSW over the same vectors, and reports
+ * HNSW recall@10 against the exact scan for each efSearch setting during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class VectorIndexBenchmark {
+
+    private static final int DIMENSION = 384;
+    private static final int QUERIES = 256;
+    private static final int K = 10;
+
+    @Param({"10000", "100000"})
+    int size;
+
+    @Param({"32", "64", "128"})
+    int efSearch;
+
+    ExactVectorIndex exact;
+    HnswVectorIndex hnsw;
+    float[][] queries;
+    int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        VectorKernel kernel = VectorKernels.preferred();
+
+        List<float[]> rows = new ArrayList<>(size);
+        List<UUID> ids = new ArrayList<>(size);
+        List<String> labels = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(randomVector(random));
+            ids.add(UUID.randomUUID());
+            labels.add("vector-" + i);
+        }
+        PackedVectors vectors = PackedVectors.of(DIMENSION, rows, ids, labels);
+
+        queries = new float[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = randomVector(random);
+        }
+
+        exact = new ExactVectorIndex(vectors, kernel);
+        hnsw = HnswVectorIndex.build(vectors, kernel, new HnswParameters(16, 200, efSearch, 42L));
+
+        System.out.printf("%nrecall@%d size=%d efSearch=%d: %.4f%n", K, size, efSearch, recall());
+    }
+
+    @Benchmark
+    public SimilarityMatch exactScan() {
+        return exact.findMostSimilar(nextQuery());
+    }
+
+    @Benchmark
+    public SimilarityMatch hnswSearch() {
+        return hnsw.findMostSimilar(nextQuery());
+    }
+
+    private double recall() {
+        int found = 0;
+        for (float[] query : queries) {
+            List<SimilarityMatch> expected = exact.search(query, K);
+            List<SimilarityMatch> actual = hnsw.search(query, K);
+            for (SimilarityMatch match : expected) {
+                if (actual.stream().anyMatch(candidate -> candidate.row() == match.row())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (QUERIES * K);
+    }
+
+    private float[] nextQuery() {
+        next = (next + 1) % QUERIES;
+        return queries[next];
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
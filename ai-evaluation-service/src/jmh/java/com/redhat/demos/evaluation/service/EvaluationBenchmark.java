@@ -0,0 +1,127 @@
+package com.redhat.demos.evaluation.service;
+
+import com.redhat.demos.evaluation.MockEmbeddingModel;
+import com.redhat.demos.evaluation.index.PackedVectors;
+import com.redhat.demos.evaluation.model.ThoughtEvaluation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Measures one thought evaluation end to end, from embedding with {@link MockEmbeddingModel} through
+ * scoring and building the evaluation with its metadata, against negative sets of increasing size.
+ * The services are wired by hand without a datasource, so the result is not persisted; the database
+ * write is batched separately by {@link EvaluationWriter}. The embedding cache is disabled so every
+ * evaluation embeds its text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector",
+    "-Djava.util.logging.manager=org.jboss.logmanager.LogManager"})
+@State(Scope.Benchmark)
+public class EvaluationBenchmark {
+
+    private static final int DIMENSION = 384;
+    private static final String[] THOUGHTS = {
+        "I hate waiting in line, it is awful",
+        "I am grateful for every wonderful opportunity",
+        "The weather is mild today",
+        "Reading a book before bed helps me relax"
+    };
+
+    @Param({"100", "1000", "10000"})
+    int negatives;
+
+    @Param({"max", "first-match", "margin"})
+    String mode;
+
+    EvaluationServiceImpl evaluationService;
+    int next;
+
+    @Setup
+    public void setup() {
+        // Per-evaluation INFO logging would dominate the measurement
+        java.util.logging.Logger.getLogger("com.redhat.demos.evaluation").setLevel(Level.WARNING);
+
+        Random random = new Random(5);
+
+        EmbeddingCache embeddingCache = new EmbeddingCache();
+        embeddingCache.enabled = false;
+
+        // No limiter: it would add permit bookkeeping that the mock model never needs
+        EmbeddingClient embeddingClient = new EmbeddingClient();
+        embeddingClient.embeddingModel = new MockEmbeddingModel();
+        embeddingClient.limiterEnabled = false;
+        embeddingClient.init();
+
+        // Not started: with batching disabled only its synchronous embedAll path is reachable
+        EmbeddingBatcher embeddingBatcher = new EmbeddingBatcher();
+        embeddingBatcher.embeddingClient = embeddingClient;
+        embeddingBatcher.maxBatchSize = 32;
+        embeddingBatcher.maxWait = Duration.ofMillis(10);
+
+        EmbeddingService embeddingService = new EmbeddingService();
+        embeddingService.embeddingClient = embeddingClient;
+        embeddingService.embeddingBatcher = embeddingBatcher;
+        embeddingService.embeddingCache = embeddingCache;
+        embeddingService.batchingEnabled = false;
+
+        VectorSimilarityService vectorSimilarityService = new VectorSimilarityService();
+        vectorSimilarityService.init();
+
+        NegativeVectorIndex negativeVectorIndex = new NegativeVectorIndex();
+        negativeVectorIndex.vectorSimilarityService = vectorSimilarityService;
+        negativeVectorIndex.indexType = "exact";
+        negativeVectorIndex.quantizationType = "none";
+        negativeVectorIndex.snapshotPath = Optional.empty();
+        negativeVectorIndex.marginEnabled = "margin".equals(mode);
+        negativeVectorIndex.install(randomVectors(random, negatives, "negative"), randomVectors(random, 100, "positive"));
+
+        EvaluationTelemetry telemetry = new EvaluationTelemetry();
+        telemetry.registry = new SimpleMeterRegistry();
+        telemetry.tracer = OpenTelemetry.noop().getTracer("benchmark");
+        telemetry.modelName = "mock";
+
+        evaluationService = new EvaluationServiceImpl();
+        evaluationService.telemetry = telemetry;
+        evaluationService.embeddingService = embeddingService;
+        evaluationService.negativeVectorIndex = negativeVectorIndex;
+        evaluationService.similarityThreshold = 0.85;
+        evaluationService.scoringMode = "first-match".equals(mode) ? "first-match" : "max";
+        evaluationService.marginEnabled = "margin".equals(mode);
+        evaluationService.minMargin = 0.0;
+    }
+
+    @Benchmark
+    public ThoughtEvaluation evaluateThought() {
+        next = (next + 1) % THOUGHTS.length;
+        return evaluationService.scoreThought(UUID.randomUUID(), THOUGHTS[next]);
+    }
+
+    private static PackedVectors randomVectors(Random random, int count, String prefix) {
+        List<float[]> rows = new ArrayList<>(count);
+        List<UUID> ids = new ArrayList<>(count);
+        List<String> labels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float[] vector = new float[DIMENSION];
+            for (int j = 0; j < DIMENSION; j++) {
+                vector[j] = (float) random.nextGaussian() * 0.05f;
+            }
+            rows.add(vector);
+            ids.add(UUID.randomUUID());
+            labels.add(prefix + "-" + i);
+        }
+        return PackedVectors.of(DIMENSION, rows, ids, labels);
+    }
+}
@@ -0,0 +1,215 @@
+package com.redhat.demos.evaluation.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.scheduler.Scheduled;
+import io.smallrye.reactive.messaging.kafka.KafkaClientService;
+import io.smallrye.reactive.messaging.kafka.KafkaConsumer;
+import io.smallrye.reactive.messaging.kafka.KafkaRecordBatch;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consumer-side metrics of the thoughts-events channel, for dashboards and for autoscaling on lag.
+ *
+ * <ul>
+ *   <li>{@code evaluation.consumer.lag} (per topic and partition): records from the group's committed
+ *       offset to the log end. The commit only advances past records whose evaluation has completed,
+ *       whatever order overlapping polls finish in, so fetched records still in flight are counted.
+ *       It is read from the broker every {@code lag-refresh-interval}, so it keeps growing while the
+ *       consumer is stalled and no polls arrive</li>
+ *   <li>{@code evaluation.consumer.records.received} / {@code .completed}: counters whose rates are the
+ *       consumer's intake and completion throughput</li>
+ *   <li>{@code evaluation.consumer.records.in.flight}: records received and not yet completed</li>
+ *   <li>{@code evaluation.consumer.batch.size}: records per poll</li>
+ *   <li>{@code evaluation.consumer.records.dropped} (per reason): records acknowledged without an evaluation</li>
+ *   <li>{@code evaluation.consumer.records.skipped} (per reason): records that needed no evaluation</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class ConsumerMetrics {
+
+    private static final Logger LOG = Logger.getLogger(ConsumerMetrics.class);
+    private static final String CHANNEL = "thoughts-events";
+    private static final Duration OFFSETS_TIMEOUT = Duration.ofSeconds(2);
+
+    /** The event could not be deserialized. */
+    public static final String DROP_MALFORMED = "malformed";
+    /** The event has no thought id or content. */
+    public static final String DROP_MISSING_FIELDS = "missing-fields";
+    /** Processing the event failed before evaluation. */
+    public static final String DROP_ERROR = "error";
+    /** The evaluation itself failed. */
+    public static final String DROP_EVALUATION_FAILED = "evaluation-failed";
+    /** The event has a newer schema version than this consumer reads. */
+    public static final String DROP_UNSUPPORTED_VERSION = "unsupported-version";
+
+    /** The thought was already evaluated with the same content. */
+    public static final String SKIP_DUPLICATE = "duplicate";
+    /** The event updated a thought without changing its content. */
+    public static final String SKIP_UNCHANGED = "unchanged";
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    KafkaClientService kafkaClientService;
+
+    private Counter received;
+    private Counter completed;
+    private DistributionSummary batchSize;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<TopicPartition, AtomicLong> partitions = new ConcurrentHashMap<>();
+    private final Map<String, Counter> dropped = new ConcurrentHashMap<>();
+    private final Map<String, Counter> skipped = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        received = Counter.builder("evaluation.consumer.records.received")
+            .description("Records received from thoughts-events")
+            .register(registry);
+        completed = Counter.builder("evaluation.consumer.records.completed")
+            .description("Records whose processing has finished, evaluated or not")
+            .register(registry);
+        batchSize = DistributionSummary.builder("evaluation.consumer.batch.size")
+            .description("Records per Kafka poll")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+        Gauge.builder("evaluation.consumer.records.in.flight", inFlight, AtomicInteger::get)
+            .description("Records received and not yet completed")
+            .register(registry);
+    }
+
+    /**
+     * Records the arrival of a poll.
+     */
+    public void polled(KafkaRecordBatch<?, ?> batch) {
+        int size = batch.getRecords().size();
+        received(size);
+        batchSize.record(size);
+    }
+
+    /**
+     * Records that every record of a poll has been processed.
+     */
+    public void completed(KafkaRecordBatch<?, ?> batch) {
+        completed(batch.getRecords().size());
+    }
+
+    /**
+     * Records received outside a poll, such as a single event.
+     */
+    public void received(int count) {
+        received.increment(count);
+        inFlight.addAndGet(count);
+    }
+
+    /**
+     * Records completed outside a poll, such as a single event.
+     */
+    public void completed(int count) {
+        completed.increment(count);
+        inFlight.addAndGet(-count);
+    }
+
+    /**
+     * Counts a record acknowledged without being evaluated.
+     *
+     * @param reason one of the {@code DROP_*} reasons
+     */
+    public void dropped(String reason) {
+        dropped.computeIfAbsent(reason, r -> Counter.builder("evaluation.consumer.records.dropped")
+            .description("Records acknowledged without an evaluation")
+            .tag("reason", r)
+            .register(registry)).increment();
+    }
+
+    /**
+     * Counts a record acknowledged without an evaluation because none was needed.
+     *
+     * @param reason one of the {@code SKIP_*} reasons
+     */
+    public void skipped(String reason) {
+        skipped.computeIfAbsent(reason, r -> Counter.builder("evaluation.consumer.records.skipped")
+            .description("Records acknowledged without an evaluation because none was needed")
+            .tag("reason", r)
+            .register(registry)).increment();
+    }
+
+    /**
+     * Reads each assigned partition's committed offset and log end on the polling thread.
+     * Partitions no longer assigned report zero so another consumer's lag is not counted twice.
+     * Runs on a timer rather than per poll, since a stalled consumer delivers no polls and the
+     * committed offset only moves when the throttled commit strategy commits.
+     */
+    @Scheduled(every = "${evaluation.consumer.lag-refresh-interval:5s}",
+        concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void refreshLag() {
+        KafkaConsumer<Object, Object> consumer;
+        try {
+            consumer = kafkaClientService.getConsumer(CHANNEL);
+        } catch (Exception e) {
+            return;
+        }
+        if (consumer == null) {
+            return;
+        }
+
+        consumer.runOnPollingThread(c -> {
+            Set<TopicPartition> assignment = c.assignment();
+            Map<TopicPartition, Long> lags = new HashMap<>();
+            if (assignment.isEmpty()) {
+                return lags;
+            }
+            Map<TopicPartition, Long> endOffsets = c.endOffsets(assignment, OFFSETS_TIMEOUT);
+            Map<TopicPartition, OffsetAndMetadata> committed = c.committed(assignment, OFFSETS_TIMEOUT);
+            for (TopicPartition partition : assignment) {
+                Long end = endOffsets.get(partition);
+                OffsetAndMetadata offset = committed.get(partition);
+                if (end != null && offset != null) {
+                    lags.put(partition, Math.max(0, end - offset.offset()));
+                } else {
+                    // Nothing committed yet for the group: only the records not yet fetched are known
+                    c.currentLag(partition).ifPresent(lag -> lags.put(partition, lag));
+                }
+            }
+            return lags;
+        }).subscribe().with(this::updateLag,
+            failure -> LOG.debugf("Could not read consumer lag: %s", failure.getMessage()));
+    }
+
+    private void updateLag(Map<TopicPartition, Long> lags) {
+        partitions.forEach((partition, lag) -> {
+            if (!lags.containsKey(partition)) {
+                lag.set(0);
+            }
+        });
+        lags.forEach((partition, lag) -> partition(partition).set(lag));
+    }
+
+    private AtomicLong partition(TopicPartition partition) {
+        return partitions.computeIfAbsent(partition, p -> {
+            AtomicLong lag = new AtomicLong();
+            Gauge.builder("evaluation.consumer.lag", lag, AtomicLong::get)
+                .description("Records from the committed offset to the log end")
+                .tag("topic", p.topic())
+                .tag("partition", String.valueOf(p.partition()))
+                .register(registry);
+            return lag;
+        });
+    }
+}
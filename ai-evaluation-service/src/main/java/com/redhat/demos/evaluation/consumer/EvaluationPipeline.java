@@ -0,0 +1,138 @@
+package com.redhat.demos.evaluation.consumer;
+
+import com.redhat.demos.evaluation.dto.ThoughtContent;
+import com.redhat.demos.evaluation.model.ThoughtEvaluation;
+import com.redhat.demos.evaluation.service.EvaluationService;
+import com.redhat.demos.evaluation.service.EvaluationWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs thought evaluations concurrently on virtual threads.
+ * At most {@code max-in-flight} evaluations are admitted at once, and evaluations of the same
+ * thought id run in submission order by chaining each one behind its predecessor.
+ * When the {@link EvaluationWriter} is enabled, results are written in bulk and an evaluation only
+ * finishes once its row is committed. While the database is unavailable the writer keeps retrying,
+ * so evaluations hold their permits and admission blocks instead of results being dropped.
+ */
+@ApplicationScoped
+public class EvaluationPipeline {
+
+    private static final Logger LOG = Logger.getLogger(EvaluationPipeline.class);
+
+    @Inject
+    EvaluationService evaluationService;
+
+    @Inject
+    EvaluationWriter evaluationWriter;
+
+    @Inject
+    ConsumerMetrics consumerMetrics;
+
+    @ConfigProperty(name = "evaluation.pipeline.max-in-flight", defaultValue = "64")
+    int maxInFlight;
+
+    private final ConcurrentHashMap<UUID, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private Semaphore permits;
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        permits = new Semaphore(maxInFlight);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOG.warnf("%d evaluations still in flight at shutdown", inFlight());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Admits a thought for evaluation, blocking while the pipeline is full.
+     *
+     * @param thought the thought to evaluate
+     * @param correlationId the correlation id of the poll the thought arrived in
+     * @return a future completed when the evaluation has finished and its result is committed, or when
+     *         it failed in a way redelivery cannot fix; failed if the result could not be written before
+     *         shutdown, in which case the record must not be acknowledged
+     * @throws InterruptedException if interrupted while waiting for capacity
+     */
+    public CompletableFuture<Void> submit(ThoughtContent thought, UUID correlationId) throws InterruptedException {
+        permits.acquire();
+
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> previous = tails.put(thought.thoughtId(), done);
+
+        if (previous == null) {
+            executor.execute(() -> run(thought, correlationId, done));
+        } else {
+            previous.whenComplete((ignored, error) -> executor.execute(() -> run(thought, correlationId, done)));
+        }
+        return done;
+    }
+
+    /**
+     * Returns the number of evaluations admitted and not yet finished.
+     */
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    private void run(ThoughtContent thought, UUID correlationId, CompletableFuture<Void> done) {
+        CompletableFuture<Void> written;
+        boolean queued = false;
+        try {
+            LOG.infof("[%s] Processing thought-created event for thought: %s", correlationId, thought.thoughtId());
+
+            if (evaluationWriter.isEnabled()) {
+                ThoughtEvaluation evaluation = evaluationService.scoreThought(thought.thoughtId(), thought.content());
+                written = evaluationWriter.write(evaluation);
+                queued = true;
+            } else {
+                evaluationService.evaluateThought(thought.thoughtId(), thought.content());
+                written = CompletableFuture.completedFuture(null);
+            }
+
+        } catch (Exception e) {
+            written = CompletableFuture.failedFuture(e);
+        }
+
+        boolean fromWriter = queued;
+        written.whenComplete((ignored, error) -> {
+            tails.remove(thought.thoughtId(), done);
+            permits.release();
+            if (error == null) {
+                LOG.infof("[%s] Successfully processed thought: %s", correlationId, thought.thoughtId());
+                done.complete(null);
+            } else if (fromWriter && EvaluationWriter.isUnwritten(error)) {
+                // The database stayed unavailable until shutdown; fail so the record is redelivered
+                LOG.errorf(error, "[%s] Evaluation of thought %s was not written: %s", correlationId, thought.thoughtId(), error.getMessage());
+                done.completeExceptionally(error);
+            } else {
+                // Scoring failed or the row was rejected; acknowledge so the partition keeps moving
+                consumerMetrics.dropped(ConsumerMetrics.DROP_EVALUATION_FAILED);
+                LOG.errorf(error, "[%s] Error processing thought %s: %s", correlationId, thought.thoughtId(), error.getMessage());
+                done.complete(null);
+            }
+        });
+    }
+}
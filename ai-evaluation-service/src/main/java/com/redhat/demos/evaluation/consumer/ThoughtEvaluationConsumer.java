@@ -1,19 +1,44 @@
 package com.redhat.demos.evaluation.consumer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redhat.demos.evaluation.dto.ThoughtContent;
 import com.redhat.demos.evaluation.dto.ThoughtEvent;
+import com.redhat.demos.evaluation.service.EvaluationDeduplicator;
 import com.redhat.demos.evaluation.service.EvaluationService;
-import io.smallrye.reactive.messaging.annotations.Blocking;
+import io.smallrye.reactive.messaging.kafka.KafkaRecord;
+import io.smallrye.reactive.messaging.kafka.KafkaRecordBatch;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 import org.jboss.logging.Logger;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Kafka consumer for thought events.
- * Listens to the thoughts-events topic and processes thought-created events.
+ * Listens to the thoughts-events topic in batch mode and processes thought-created events,
+ * either through the concurrent {@link EvaluationPipeline} or as one batch evaluation per poll.
+ * Events for a thought already evaluated with the same content are skipped before embedding,
+ * so redelivered and replayed records cost a dedup check rather than an evaluation.
+ * The producer puts the event type, thought id, schema version and content hashes in record headers:
+ * updates that did not change the content, deleted thoughts and already evaluated content are all
+ * skipped from the headers alone, without deserializing the payload. Events of a newer schema version
+ * than this consumer understands are dropped rather than misread.
  * Follows the pattern from ThoughtEventService (producer) in reverse.
  */
 @ApplicationScoped
@@ -21,6 +46,17 @@ public class ThoughtEvaluationConsumer {
 
     private static final Logger LOG = Logger.getLogger(ThoughtEvaluationConsumer.class);
     private static final String EVENT_TYPE_CREATED = "CREATED";
+    private static final String EVENT_TYPE_UPDATED = "UPDATED";
+
+    // Record headers set by ThoughtEventService in thoughts-msa-ai-backend
+    static final String HEADER_EVENT_TYPE = "thought-event-type";
+    static final String HEADER_CONTENT_HASH = "thought-content-hash";
+    static final String HEADER_PREVIOUS_CONTENT_HASH = "thought-previous-content-hash";
+    static final String HEADER_THOUGHT_ID = "thought-id";
+    static final String HEADER_EVENT_VERSION = "thought-event-version";
+
+    /** Newest event schema version this consumer reads; events without a version predate versioning. */
+    static final int SUPPORTED_EVENT_VERSION = 1;
 
     @Inject
     EvaluationService evaluationService;
@@ -28,53 +64,315 @@ public class ThoughtEvaluationConsumer {
     @Inject
     ObjectMapper objectMapper;
 
+    @Inject
+    EvaluationPipeline evaluationPipeline;
+
+    @Inject
+    ConsumerMetrics consumerMetrics;
+
+    @Inject
+    EvaluationDeduplicator deduplicator;
+
+    @ConfigProperty(name = "evaluation.pipeline.enabled", defaultValue = "true")
+    boolean pipelineEnabled;
+
+    private final ExecutorService dispatchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
     /**
-     * Consumes thought events from Kafka and processes thought-created events only.
-     * Events are received as JSON strings and deserialized to ThoughtEvent objects.
+     * Receives a whole Kafka poll and acknowledges it only once every record has been processed,
+     * so the throttled commit strategy never commits offsets of unfinished evaluations.
+     * In pipeline mode the returned stage completes as soon as the records are admitted to the
+     * pipeline, letting the next poll overlap with evaluations still in flight. A poll with an evaluation
+     * the writer could not commit before shutdown, or whose admission was interrupted, is nacked instead,
+     * so its offsets are never committed. Either way the returned stage itself completes normally.
      *
-     * @param eventJson the raw JSON event string from Kafka
+     * @param batch the records from one Kafka poll
+     * @return a stage completed when the next poll may be delivered
      */
     @Incoming("thoughts-events")
-    @Blocking
+    public CompletionStage<Void> onPoll(KafkaRecordBatch<String, String> batch) {
+        List<IncomingEvent> events = batch.getRecords().stream().map(ThoughtEvaluationConsumer::incoming).toList();
+        consumerMetrics.polled(batch);
+
+        if (!pipelineEnabled) {
+            return CompletableFuture.runAsync(() -> evaluateTogether(events), dispatchExecutor)
+                .whenComplete((ignored, error) -> consumerMetrics.completed(batch))
+                .thenCompose(ignored -> batch.ack());
+        }
+
+        CompletableFuture<CompletableFuture<Void>> admission =
+            CompletableFuture.supplyAsync(() -> dispatch(events), dispatchExecutor);
+        admission.thenCompose(processed -> processed).whenComplete((ignored, error) -> {
+            consumerMetrics.completed(batch);
+            if (error == null) {
+                batch.ack();
+            } else {
+                batch.nack(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+        // The poll is settled by the ack or nack above; a failed stage here would be a second nack
+        return admission.handle((ignored, error) -> null);
+    }
+
+    /**
+     * Admits every thought-created event of a poll to the evaluation pipeline,
+     * blocking while the pipeline is at its in-flight limit.
+     *
+     * @return a future completed when all admitted evaluations have finished, or failed once they have
+     *         if admission was interrupted before every event was admitted
+     */
+    private CompletableFuture<Void> dispatch(List<IncomingEvent> events) {
+        UUID correlationId = UUID.randomUUID();
+        List<CompletableFuture<Void>> evaluations = new ArrayList<>(events.size());
+
+        LOG.debugf("[%s] Received batch of %d events", correlationId, events.size());
+
+        for (IncomingEvent event : events) {
+            try {
+                Optional<ThoughtContent> thought = toThoughtContent(event, correlationId);
+                if (thought.isPresent()) {
+                    evaluations.add(evaluationPipeline.submit(thought.get(), correlationId));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.warnf("[%s] Interrupted after admitting %d evaluations, the poll will not be acknowledged",
+                    correlationId, evaluations.size());
+                // Settle only after the admitted evaluations finish, so none is still running when the poll is nacked
+                CompletableFuture<Void> interrupted = new CompletableFuture<>();
+                CompletableFuture.allOf(evaluations.toArray(new CompletableFuture[0]))
+                    .whenComplete((ignored, error) -> interrupted.completeExceptionally(e));
+                return interrupted;
+            } catch (Exception e) {
+                consumerMetrics.dropped(ConsumerMetrics.DROP_ERROR);
+                LOG.errorf(e, "[%s] Error processing thought event: %s", correlationId, e.getMessage());
+            }
+        }
+
+        return CompletableFuture.allOf(evaluations.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Evaluates a whole Kafka poll of thought events together in one batch.
+     * If the batch evaluation fails, each thought is retried individually so one bad record
+     * does not drop the rest of the batch.
+     *
+     * @param eventJsons the raw JSON event strings from one Kafka poll
+     */
+    public void consumeThoughtEvents(List<String> eventJsons) {
+        evaluateTogether(eventJsons.stream().map(json -> new IncomingEvent(json, null)).toList());
+    }
+
+    private void evaluateTogether(List<IncomingEvent> events) {
+        UUID correlationId = UUID.randomUUID();
+
+        LOG.debugf("[%s] Received batch of %d events", correlationId, events.size());
+
+        // Repeats of the same thought and content within a poll are evaluated once
+        Set<ThoughtContent> unique = new LinkedHashSet<>(events.size());
+        for (IncomingEvent event : events) {
+            try {
+                toThoughtContent(event, correlationId).ifPresent(thought -> {
+                    if (!unique.add(thought)) {
+                        consumerMetrics.skipped(ConsumerMetrics.SKIP_DUPLICATE);
+                    }
+                });
+            } catch (Exception e) {
+                consumerMetrics.dropped(ConsumerMetrics.DROP_ERROR);
+                LOG.errorf(e, "[%s] Error processing thought event: %s", correlationId, e.getMessage());
+            }
+        }
+
+        if (unique.isEmpty()) {
+            return;
+        }
+        List<ThoughtContent> thoughts = List.copyOf(unique);
+
+        try {
+            LOG.infof("[%s] Processing %d thought-created events", correlationId, thoughts.size());
+
+            evaluationService.evaluateThoughts(thoughts);
+
+            LOG.infof("[%s] Successfully processed %d thoughts", correlationId, thoughts.size());
+
+        } catch (Exception e) {
+            LOG.errorf(e, "[%s] Batch evaluation failed, evaluating %d thoughts individually",
+                correlationId, thoughts.size());
+            thoughts.forEach(thought -> evaluate(thought, correlationId));
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatchExecutor.shutdown();
+    }
+
+    /**
+     * Processes a single thought event, evaluating it if it is a thought-created event.
+     * Events are received as JSON strings and deserialized to ThoughtEvent objects.
+     *
+     * @param eventJson the raw JSON event string
+     */
     public void consumeThoughtEvent(String eventJson) {
+        consumeThoughtEvent(eventJson, null);
+    }
+
+    /**
+     * Processes a single thought event with the headers of its Kafka record.
+     *
+     * @param eventJson the raw JSON event string
+     * @param headers the record headers, or null if there are none
+     */
+    public void consumeThoughtEvent(String eventJson, Headers headers) {
         UUID correlationId = UUID.randomUUID();
+        consumerMetrics.received(1);
 
         try {
-            LOG.debugf("[%s] Received event: %s", correlationId, eventJson);
+            toThoughtContent(new IncomingEvent(eventJson, headers), correlationId)
+                .ifPresent(thought -> evaluate(thought, correlationId));
+        } catch (Exception e) {
+            // Log error but don't rethrow - consumer should continue processing subsequent messages
+            consumerMetrics.dropped(ConsumerMetrics.DROP_ERROR);
+            LOG.errorf(e, "[%s] Error processing thought event: %s", correlationId, e.getMessage());
+        } finally {
+            consumerMetrics.completed(1);
+        }
+    }
 
-            // Deserialize the event
-            ThoughtEvent event = deserializeEvent(eventJson);
+    /**
+     * Deserializes and filters an event, returning the thought to evaluate if it is a valid
+     * created or updated event whose content has not been evaluated yet.
+     */
+    private Optional<ThoughtContent> toThoughtContent(IncomingEvent incoming, UUID correlationId) {
+        LOG.debugf("[%s] Received event: %s", correlationId, incoming.json());
+
+        // Updates that left the content alone are recognised from the headers, without deserializing
+        String headerType = incoming.header(HEADER_EVENT_TYPE);
+        String contentHash = incoming.header(HEADER_CONTENT_HASH);
+        if (EVENT_TYPE_UPDATED.equalsIgnoreCase(headerType) && contentHash != null
+                && contentHash.equals(incoming.header(HEADER_PREVIOUS_CONTENT_HASH))) {
+            consumerMetrics.skipped(ConsumerMetrics.SKIP_UNCHANGED);
+            LOG.debugf("[%s] Ignoring update without a content change", correlationId);
+            return Optional.empty();
+        }
+        if (headerType != null && !isEvaluatedEventType(headerType)) {
+            LOG.debugf("[%s] Ignoring %s event", correlationId, headerType);
+            return Optional.empty();
+        }
+        if (!isSupportedVersion(incoming.header(HEADER_EVENT_VERSION), correlationId)) {
+            return Optional.empty();
+        }
 
-            if (event == null) {
-                LOG.warnf("[%s] Failed to deserialize event, skipping", correlationId);
-                return;
+        // Replays of already evaluated content are recognised from the id and hash headers
+        UUID headerThoughtId = parseThoughtId(incoming.header(HEADER_THOUGHT_ID));
+        boolean checked = false;
+        if (headerThoughtId != null && contentHash != null) {
+            if (isAlreadyEvaluated(headerThoughtId, contentHash, headerType, correlationId)) {
+                return Optional.empty();
             }
+            checked = true;
+        }
+
+        // Deserialize the event
+        ThoughtEvent event = deserializeEvent(incoming.json());
+
+        if (event == null) {
+            consumerMetrics.dropped(ConsumerMetrics.DROP_MALFORMED);
+            LOG.warnf("[%s] Failed to deserialize event, skipping", correlationId);
+            return Optional.empty();
+        }
+        if (event.getVersion() != null
+                && !isSupportedVersion(String.valueOf(event.getVersion()), correlationId)) {
+            return Optional.empty();
+        }
+
+        // Filter for thought-created and thought-updated events only
+        String eventType = headerType != null ? headerType : event.getEventType();
+        if (!isEvaluatedEventType(eventType)) {
+            LOG.debugf("[%s] Ignoring event type: %s for thought: %s",
+                correlationId, eventType, event.getThoughtId());
+            return Optional.empty();
+        }
+
+        // Extract thought ID and content
+        UUID thoughtId = event.getThoughtId();
+        String thoughtContent = event.getThoughtContent();
+
+        if (thoughtId == null || thoughtContent == null || thoughtContent.trim().isEmpty()) {
+            consumerMetrics.dropped(ConsumerMetrics.DROP_MISSING_FIELDS);
+            LOG.warnf("[%s] Event missing required fields (thoughtId or content), skipping", correlationId);
+            return Optional.empty();
+        }
 
-            // Filter for thought-created events only
-            if (!isCreatedEvent(event)) {
-                LOG.debugf("[%s] Ignoring non-created event type: %s for thought: %s",
-                    correlationId, event.getEventType(), event.getThoughtId());
-                return;
+        if (!checked) {
+            if (contentHash == null) {
+                contentHash = event.getContentHash() != null
+                    ? event.getContentHash() : EvaluationDeduplicator.contentHash(thoughtContent);
             }
+            if (isAlreadyEvaluated(thoughtId, contentHash, eventType, correlationId)) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(new ThoughtContent(thoughtId, thoughtContent));
+    }
 
-            // Extract thought ID and content
-            UUID thoughtId = event.getThoughtId();
-            String thoughtContent = event.getThoughtContent();
+    private boolean isAlreadyEvaluated(UUID thoughtId, String contentHash, String eventType, UUID correlationId) {
+        if (!deduplicator.isEvaluated(thoughtId, contentHash)) {
+            return false;
+        }
+        consumerMetrics.skipped(EVENT_TYPE_UPDATED.equalsIgnoreCase(eventType)
+            ? ConsumerMetrics.SKIP_UNCHANGED : ConsumerMetrics.SKIP_DUPLICATE);
+        LOG.debugf("[%s] Thought %s already evaluated with this content, skipping", correlationId, thoughtId);
+        return true;
+    }
 
-            if (thoughtId == null || thoughtContent == null || thoughtContent.trim().isEmpty()) {
-                LOG.warnf("[%s] Event missing required fields (thoughtId or content), skipping", correlationId);
-                return;
+    /**
+     * Checks the event schema version from the record header or payload, dropping events of a newer
+     * version than this consumer reads. A missing or unreadable version is treated as supported.
+     */
+    private boolean isSupportedVersion(String version, UUID correlationId) {
+        if (version == null) {
+            return true;
+        }
+        try {
+            if (Integer.parseInt(version.trim()) <= SUPPORTED_EVENT_VERSION) {
+                return true;
             }
+        } catch (NumberFormatException e) {
+            return true;
+        }
+        consumerMetrics.dropped(ConsumerMetrics.DROP_UNSUPPORTED_VERSION);
+        LOG.warnf("[%s] Event schema version %s is newer than supported version %d, skipping",
+            correlationId, version, SUPPORTED_EVENT_VERSION);
+        return false;
+    }
+
+    private static UUID parseThoughtId(String thoughtId) {
+        if (thoughtId == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(thoughtId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 
-            LOG.infof("[%s] Processing thought-created event for thought: %s", correlationId, thoughtId);
+    /**
+     * Evaluates one thought, logging rather than rethrowing failures.
+     */
+    private void evaluate(ThoughtContent thought, UUID correlationId) {
+        try {
+            LOG.infof("[%s] Processing thought-created event for thought: %s", correlationId, thought.thoughtId());
 
             // Delegate to evaluation service
-            evaluationService.evaluateThought(thoughtId, thoughtContent);
+            evaluationService.evaluateThought(thought.thoughtId(), thought.content());
 
-            LOG.infof("[%s] Successfully processed thought: %s", correlationId, thoughtId);
+            LOG.infof("[%s] Successfully processed thought: %s", correlationId, thought.thoughtId());
 
         } catch (Exception e) {
             // Log error but don't rethrow - consumer should continue processing subsequent messages
+            consumerMetrics.dropped(ConsumerMetrics.DROP_EVALUATION_FAILED);
             LOG.errorf(e, "[%s] Error processing thought event: %s", correlationId, e.getMessage());
         }
     }
@@ -96,21 +394,33 @@ public class ThoughtEvaluationConsumer {
     }
 
     /**
-     * Checks if the event is a thought-created event.
-     * The event type might be in the event metadata or inferred from the presence of createdAt field.
+     * Checks if the event type is one whose content needs evaluating: a created or updated thought.
+     * Unchanged content of an update is filtered out afterwards by its content hash.
      *
-     * @param event the event to check
-     * @return true if this is a created event, false otherwise
+     * @param eventType the event type from the record header or payload, if any
+     * @return true if this is a created or updated event, false otherwise
      */
-    private boolean isCreatedEvent(ThoughtEvent event) {
-        // Check explicit event type if present
-        if (event.getEventType() != null) {
-            return EVENT_TYPE_CREATED.equalsIgnoreCase(event.getEventType());
+    private boolean isEvaluatedEventType(String eventType) {
+        // Events without a type, from producers that do not send one, are treated as created events
+        // and rely on the topic/channel filtering
+        if (eventType == null) {
+            return true;
         }
+        return EVENT_TYPE_CREATED.equalsIgnoreCase(eventType) || EVENT_TYPE_UPDATED.equalsIgnoreCase(eventType);
+    }
 
-        // Since ThoughtEventService doesn't include explicit eventType in the payload,
-        // we treat all events as potential created events and rely on the topic/channel filtering
-        // In a real scenario, we might check if createdAt equals updatedAt or use message headers
-        return true;
+    private static IncomingEvent incoming(KafkaRecord<String, String> record) {
+        return new IncomingEvent(record.getPayload(), record.getHeaders());
+    }
+
+    /**
+     * A raw event with the headers of its record.
+     */
+    private record IncomingEvent(String json, Headers headers) {
+
+        String header(String name) {
+            Header header = headers == null ? null : headers.lastHeader(name);
+            return header == null || header.value() == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+        }
     }
 }
@@ -0,0 +1,23 @@
+package com.redhat.demos.evaluation.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Progress of a vector ingestion job.
+ *
+ * @param id the job id
+ * @param state PENDING, RUNNING, SWAPPING (rows committed, index being rebuilt), COMPLETED or FAILED
+ * @param replace whether existing vectors of each ingested type are replaced
+ * @param linesRead the non-blank lines read so far
+ * @param embedded the texts embedded so far
+ * @param written the vectors written, set once they are all copied and committed together
+ * @param failed the lines skipped as invalid
+ * @param errors the first few line errors, and the job error if it failed
+ * @param startedAt when the job started running
+ * @param finishedAt when the job completed or failed
+ */
+public record IngestionStatus(UUID id, String state, boolean replace, long linesRead, long embedded, long written,
+                              long failed, List<String> errors, LocalDateTime startedAt, LocalDateTime finishedAt) {
+}
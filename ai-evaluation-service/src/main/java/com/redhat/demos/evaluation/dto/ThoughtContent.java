@@ -0,0 +1,9 @@
+package com.redhat.demos.evaluation.dto;
+
+import java.util.UUID;
+
+/**
+ * A thought's identifier and text content, extracted from a thought event for evaluation.
+ */
+public record ThoughtContent(UUID thoughtId, String content) {
+}
@@ -8,7 +8,9 @@ import java.util.UUID;
 
 /**
  * DTO for thought events consumed from Kafka.
- * Represents the event structure published by ThoughtEventService in thoughts-msa-ai-backend.
+ * Represents the event structure published by ThoughtEventService in thoughts-msa-ai-backend: the
+ * versioned ThoughtEventDTO payload, and the serialized Thought entity published before it, which has
+ * no version, event type or content hash.
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ThoughtEvent {
@@ -44,6 +46,12 @@ public class ThoughtEvent {
     private String eventType;
     private LocalDateTime timestamp;
 
+    @JsonProperty("version")
+    private Integer version;
+
+    @JsonProperty("contentHash")
+    private String contentHash;
+
     public ThoughtEvent() {
     }
 
@@ -135,11 +143,28 @@ public class ThoughtEvent {
         this.timestamp = timestamp;
     }
 
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     @Override
     public String toString() {
         return "ThoughtEvent{" +
                 "thoughtId=" + thoughtId +
                 ", eventType='" + eventType + '\'' +
+                ", version=" + version +
                 ", timestamp=" + timestamp +
                 '}';
     }
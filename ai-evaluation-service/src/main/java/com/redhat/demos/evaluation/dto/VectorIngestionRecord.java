@@ -0,0 +1,45 @@
+package com.redhat.demos.evaluation.dto;
+
+import com.redhat.demos.evaluation.model.VectorType;
+
+/**
+ * One NDJSON line of a vector ingestion: a labeled text to embed, or a precomputed embedding.
+ *
+ * @param label the label of the vector
+ * @param type whether the vector is a POSITIVE or NEGATIVE example
+ * @param text the text to embed, when no embedding is given
+ * @param embedding the precomputed embedding, when no text is given
+ */
+public record VectorIngestionRecord(String label, VectorType type, String text, float[] embedding) {
+
+    /**
+     * Checks that the record is complete, has exactly one of text or embedding, and that a precomputed
+     * embedding has the expected dimension.
+     *
+     * @param dimension the dimension a precomputed embedding must have, or 0 to accept any
+     * @throws IllegalArgumentException describing the first problem found
+     */
+    public void validate(int dimension) {
+        if (label == null || label.isBlank() || label.length() > 255) {
+            throw new IllegalArgumentException("Label must be between 1 and 255 characters");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Type must be POSITIVE or NEGATIVE");
+        }
+        boolean hasText = text != null && !text.isBlank();
+        if (hasText != needsEmbedding()) {
+            throw new IllegalArgumentException("Exactly one of text or embedding must be given");
+        }
+        if (!needsEmbedding() && dimension > 0 && embedding.length != dimension) {
+            throw new IllegalArgumentException(
+                String.format("Embedding has dimension %d, expected %d", embedding.length, dimension));
+        }
+    }
+
+    /**
+     * Returns whether the text must be embedded, that is whether no non-empty embedding was given.
+     */
+    public boolean needsEmbedding() {
+        return embedding == null || embedding.length == 0;
+    }
+}
@@ -0,0 +1,83 @@
+package com.redhat.demos.evaluation.index;
+
+import java.util.List;
+
+/**
+ * How often an index reaches the same APPROVED/REJECTED decision as the exact scan at a similarity
+ * threshold. Queries whose exact best score lies within {@code boundaryMargin} of the threshold are
+ * counted separately, since that is where approximation errors change decisions.
+ *
+ * @param queries the number of queries compared
+ * @param agreements the queries with the same decision
+ * @param falseApprovals the queries the exact scan rejects and the candidate approves
+ * @param falseRejections the queries the exact scan approves and the candidate rejects
+ * @param boundaryQueries the queries whose exact best score is near the threshold
+ * @param boundaryAgreements the boundary queries with the same decision
+ * @param maxScoreError the largest difference between the exact and candidate best scores
+ */
+public record DecisionAgreement(int queries, int agreements, int falseApprovals, int falseRejections,
+                                int boundaryQueries, int boundaryAgreements, double maxScoreError) {
+
+    /**
+     * Compares the decisions of a candidate index with an exact scan over the same vectors.
+     *
+     * @param candidate the index under test
+     * @param exact the reference exact scan
+     * @param queries the query vectors
+     * @param threshold the similarity above which a thought is rejected
+     * @param boundaryMargin the distance from the threshold within which a query counts as a boundary query
+     * @return the agreement counts
+     */
+    public static DecisionAgreement measure(VectorIndex candidate, VectorIndex exact, List<float[]> queries,
+                                            double threshold, double boundaryMargin) {
+        int agreements = 0;
+        int falseApprovals = 0;
+        int falseRejections = 0;
+        int boundaryQueries = 0;
+        int boundaryAgreements = 0;
+        double maxScoreError = 0.0;
+
+        for (float[] query : queries) {
+            double exactScore = Math.max(0.0, exact.findMostSimilar(query).score());
+            double candidateScore = Math.max(0.0, candidate.findMostSimilar(query).score());
+            boolean exactRejects = exactScore > threshold;
+            boolean candidateRejects = candidateScore > threshold;
+            boolean agrees = exactRejects == candidateRejects;
+            boolean boundary = Math.abs(exactScore - threshold) <= boundaryMargin;
+
+            if (agrees) {
+                agreements++;
+            } else if (exactRejects) {
+                falseApprovals++;
+            } else {
+                falseRejections++;
+            }
+            if (boundary) {
+                boundaryQueries++;
+                if (agrees) {
+                    boundaryAgreements++;
+                }
+            }
+            maxScoreError = Math.max(maxScoreError, Math.abs(exactScore - candidateScore));
+        }
+
+        return new DecisionAgreement(queries.size(), agreements, falseApprovals, falseRejections,
+            boundaryQueries, boundaryAgreements, maxScoreError);
+    }
+
+    public double agreementRate() {
+        return queries == 0 ? 1.0 : (double) agreements / queries;
+    }
+
+    public double boundaryAgreementRate() {
+        return boundaryQueries == 0 ? 1.0 : (double) boundaryAgreements / boundaryQueries;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "agreement %.4f (%d/%d), boundary agreement %.4f (%d/%d), false approvals %d, false rejections %d, max score error %.5f",
+            agreementRate(), agreements, queries, boundaryAgreementRate(), boundaryAgreements, boundaryQueries,
+            falseApprovals, falseRejections, maxScoreError);
+    }
+}
@@ -0,0 +1,143 @@
+package com.redhat.demos.evaluation.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Exact linear scan computing one matrix-vector product over every row.
+ * Serves as the reference for verifying approximate indexes.
+ * The early-exit scan visits rows in {@link HitRateOrder}, so frequently matched rows are tested first.
+ */
+public final class ExactVectorIndex implements VectorIndex {
+
+    private final PackedVectors vectors;
+    private final VectorKernel kernel;
+    private final HitRateOrder hitRateOrder;
+
+    public ExactVectorIndex(PackedVectors vectors, VectorKernel kernel) {
+        this.vectors = vectors;
+        this.kernel = kernel;
+        this.hitRateOrder = new HitRateOrder(vectors.size());
+    }
+
+    @Override
+    public List<SimilarityMatch> search(float[] query, int k) {
+        if (vectors.isEmpty() || k <= 0) {
+            return List.of();
+        }
+
+        return top(scoreAll(query), k);
+    }
+
+    @Override
+    public SimilarityMatch findMostSimilar(float[] query) {
+        if (vectors.isEmpty()) {
+            return SimilarityMatch.NONE;
+        }
+
+        double[] scores = scoreAll(query);
+        int bestRow = 0;
+        for (int row = 1; row < scores.length; row++) {
+            if (scores[row] > scores[bestRow]) {
+                bestRow = row;
+            }
+        }
+        return new SimilarityMatch(bestRow, scores[bestRow]);
+    }
+
+    @Override
+    public SimilarityMatch findFirstAbove(float[] query, double threshold) {
+        if (vectors.isEmpty()) {
+            return SimilarityMatch.NONE;
+        }
+
+        double queryNorm = VectorIndex.queryNorm(query, vectors, kernel);
+        if (queryNorm == 0.0) {
+            return new SimilarityMatch(0, 0.0);
+        }
+
+        int bestRow = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int row : hitRateOrder.order()) {
+            double rowNorm = vectors.norm(row);
+            double score = rowNorm == 0.0
+                ? 0.0
+                : clamp(vectors.dot(kernel, query, 0, row) / (queryNorm * rowNorm));
+
+            if (score > threshold) {
+                hitRateOrder.recordHit(row);
+                return new SimilarityMatch(row, score);
+            }
+            if (score > bestScore || (score == bestScore && row < bestRow)) {
+                bestRow = row;
+                bestScore = score;
+            }
+        }
+        return new SimilarityMatch(bestRow, bestScore);
+    }
+
+    /**
+     * Returns the hit counts and scan order used by {@link #findFirstAbove(float[], double)}.
+     */
+    public HitRateOrder hitRateOrder() {
+        return hitRateOrder;
+    }
+
+    /**
+     * Computes the cosine similarity of the query against every row.
+     */
+    public double[] scoreAll(float[] query) {
+        double queryNorm = VectorIndex.queryNorm(query, vectors, kernel);
+
+        int size = vectors.size();
+        double[] scores = new double[size];
+        if (queryNorm == 0.0) {
+            return scores;
+        }
+
+        float[] dotProducts = new float[size];
+        vectors.dotAll(kernel, query, dotProducts);
+
+        for (int row = 0; row < size; row++) {
+            double rowNorm = vectors.norm(row);
+            scores[row] = rowNorm == 0.0 ? 0.0 : clamp(dotProducts[row] / (queryNorm * rowNorm));
+        }
+        return scores;
+    }
+
+    @Override
+    public PackedVectors vectors() {
+        return vectors;
+    }
+
+    @Override
+    public String name() {
+        return "exact";
+    }
+
+    /**
+     * Returns the {@code k} highest scores with their rows, best first.
+     */
+    static List<SimilarityMatch> top(double[] scores, int k) {
+        PriorityQueue<SimilarityMatch> best = new PriorityQueue<>(k, Comparator.comparingDouble(SimilarityMatch::score));
+        for (int row = 0; row < scores.length; row++) {
+            if (best.size() < k) {
+                best.add(new SimilarityMatch(row, scores[row]));
+            } else if (scores[row] > best.peek().score()) {
+                best.poll();
+                best.add(new SimilarityMatch(row, scores[row]));
+            }
+        }
+
+        List<SimilarityMatch> matches = new ArrayList<>(best);
+        matches.sort(Collections.reverseOrder(Comparator.comparingDouble(SimilarityMatch::score)));
+        return matches;
+    }
+
+    static double clamp(double similarity) {
+        return Math.max(-1.0, Math.min(1.0, similarity));
+    }
+}
@@ -0,0 +1,72 @@
+package com.redhat.demos.evaluation.index;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scan order over the rows of a vector set, most frequently matched rows first.
+ * Hits are counted per row and the order is recomputed every {@code reorderInterval} hits,
+ * so early-exit scans test the likeliest matches before the rest.
+ */
+public final class HitRateOrder {
+
+    private static final int DEFAULT_REORDER_INTERVAL = 1024;
+
+    private final AtomicLongArray hits;
+    private final AtomicLong recorded = new AtomicLong();
+    private final int reorderInterval;
+    private volatile int[] order;
+
+    public HitRateOrder(int size) {
+        this(size, DEFAULT_REORDER_INTERVAL);
+    }
+
+    public HitRateOrder(int size, int reorderInterval) {
+        if (reorderInterval < 1) {
+            throw new IllegalArgumentException("Reorder interval must be positive");
+        }
+        this.hits = new AtomicLongArray(size);
+        this.reorderInterval = reorderInterval;
+        this.order = new int[size];
+        Arrays.setAll(order, row -> row);
+    }
+
+    /**
+     * Returns the current scan order. Callers must not modify it.
+     */
+    public int[] order() {
+        return order;
+    }
+
+    /**
+     * Counts a match on the given row, reordering once enough hits have accumulated.
+     */
+    public void recordHit(int row) {
+        hits.incrementAndGet(row);
+        if (recorded.incrementAndGet() % reorderInterval == 0) {
+            reorder();
+        }
+    }
+
+    public long hits(int row) {
+        return hits.get(row);
+    }
+
+    private void reorder() {
+        int size = hits.length();
+        // Sort (hits, row) pairs packed into longs; ties keep ascending row order
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            long count = Math.min(hits.get(row), Integer.MAX_VALUE);
+            keys[row] = ((Integer.MAX_VALUE - count) << 32) | row;
+        }
+        Arrays.sort(keys);
+
+        int[] reordered = new int[size];
+        for (int i = 0; i < size; i++) {
+            reordered[i] = (int) keys[i];
+        }
+        order = reordered;
+    }
+}
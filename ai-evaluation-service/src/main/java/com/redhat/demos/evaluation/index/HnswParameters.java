@@ -0,0 +1,22 @@
+package com.redhat.demos.evaluation.index;
+
+/**
+ * Build and search parameters for {@link HnswVectorIndex}.
+ * Larger values trade build time, memory and latency for recall.
+ *
+ * @param m the number of neighbours kept per node on upper layers; layer 0 keeps twice as many
+ * @param efConstruction the candidate list size used while inserting nodes
+ * @param efSearch the candidate list size used while searching
+ * @param seed the seed for level assignment, so builds are reproducible
+ */
+public record HnswParameters(int m, int efConstruction, int efSearch, long seed) {
+
+    public HnswParameters {
+        if (m < 2) {
+            throw new IllegalArgumentException("HNSW m must be at least 2");
+        }
+        if (efConstruction < 1 || efSearch < 1) {
+            throw new IllegalArgumentException("HNSW ef values must be positive");
+        }
+    }
+}
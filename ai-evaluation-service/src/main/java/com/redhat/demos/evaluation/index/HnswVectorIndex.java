@@ -0,0 +1,292 @@
+package com.redhat.demos.evaluation.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Approximate nearest-neighbour index using a Hierarchical Navigable Small World graph
+ * (Malkov and Yashunin) with the neighbour-selection heuristic.
+ * The graph is built once over an immutable vector set and is safe for concurrent searches.
+ */
+public final class HnswVectorIndex implements VectorIndex {
+
+    private static final Comparator<SimilarityMatch> BY_SCORE = Comparator.comparingDouble(SimilarityMatch::score);
+    private static final Comparator<SimilarityMatch> BY_SCORE_DESC = BY_SCORE.reversed();
+
+    private final PackedVectors vectors;
+    private final VectorKernel kernel;
+    private final HnswParameters parameters;
+    private final int[][][] links;
+    private final int[][] linkCounts;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    private HnswVectorIndex(PackedVectors vectors, VectorKernel kernel, HnswParameters parameters) {
+        this.vectors = vectors;
+        this.kernel = kernel;
+        this.parameters = parameters;
+        this.links = new int[vectors.size()][][];
+        this.linkCounts = new int[vectors.size()][];
+    }
+
+    /**
+     * Builds an index over all rows of the given vectors.
+     *
+     * @param vectors the vectors to index
+     * @param kernel the kernel used for dot products
+     * @param parameters the graph parameters
+     * @return the built index
+     */
+    public static HnswVectorIndex build(PackedVectors vectors, VectorKernel kernel, HnswParameters parameters) {
+        HnswVectorIndex index = new HnswVectorIndex(vectors, kernel, parameters);
+        SplittableRandom random = new SplittableRandom(parameters.seed());
+        double levelMultiplier = 1.0 / Math.log(parameters.m());
+
+        for (int node = 0; node < vectors.size(); node++) {
+            int level = (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+            index.insert(node, level);
+        }
+        return index;
+    }
+
+    @Override
+    public List<SimilarityMatch> search(float[] query, int k) {
+        if (entryPoint < 0 || k <= 0) {
+            return List.of();
+        }
+
+        double queryNorm = VectorIndex.queryNorm(query, vectors, kernel);
+        if (queryNorm == 0.0) {
+            return List.of(new SimilarityMatch(entryPoint, 0.0));
+        }
+
+        SimilarityMatch current = new SimilarityMatch(entryPoint, score(query, 0, queryNorm, entryPoint));
+        for (int level = maxLevel; level > 0; level--) {
+            current = greedySearch(query, 0, queryNorm, current, level);
+        }
+
+        List<SimilarityMatch> results = searchLayer(query, 0, queryNorm, current, Math.max(parameters.efSearch(), k), 0);
+        return results.size() > k ? List.copyOf(results.subList(0, k)) : results;
+    }
+
+    @Override
+    public PackedVectors vectors() {
+        return vectors;
+    }
+
+    @Override
+    public String name() {
+        return "hnsw";
+    }
+
+    public HnswParameters parameters() {
+        return parameters;
+    }
+
+    private void insert(int node, int level) {
+        links[node] = new int[level + 1][];
+        linkCounts[node] = new int[level + 1];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[capacity(l)];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        float[] vector = rowData(node);
+        int offset = rowOffset(node);
+        double norm = vectors.norm(node);
+
+        SimilarityMatch current = new SimilarityMatch(entryPoint, score(vector, offset, norm, entryPoint));
+        for (int l = maxLevel; l > level; l--) {
+            current = greedySearch(vector, offset, norm, current, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<SimilarityMatch> candidates = searchLayer(vector, offset, norm, current, parameters.efConstruction(), l);
+            List<SimilarityMatch> neighbours = selectNeighbours(candidates, parameters.m());
+
+            for (SimilarityMatch neighbour : neighbours) {
+                links[node][l][linkCounts[node][l]++] = neighbour.row();
+                addLink(neighbour.row(), node, neighbour.score(), l);
+            }
+            current = candidates.get(0);
+        }
+
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    /**
+     * Adds a link from {@code node} to {@code target}, re-selecting the node's neighbours when full.
+     */
+    private void addLink(int node, int target, double targetScore, int level) {
+        int count = linkCounts[node][level];
+        int[] nodeLinks = links[node][level];
+
+        if (count < nodeLinks.length) {
+            nodeLinks[count] = target;
+            linkCounts[node][level] = count + 1;
+            return;
+        }
+
+        float[] vector = rowData(node);
+        int offset = rowOffset(node);
+        double norm = vectors.norm(node);
+        List<SimilarityMatch> candidates = new ArrayList<>(count + 1);
+        candidates.add(new SimilarityMatch(target, targetScore));
+        for (int i = 0; i < count; i++) {
+            candidates.add(new SimilarityMatch(nodeLinks[i], score(vector, offset, norm, nodeLinks[i])));
+        }
+        candidates.sort(BY_SCORE_DESC);
+
+        List<SimilarityMatch> selected = selectNeighbours(candidates, nodeLinks.length);
+        for (int i = 0; i < selected.size(); i++) {
+            nodeLinks[i] = selected.get(i).row();
+        }
+        linkCounts[node][level] = selected.size();
+    }
+
+    /**
+     * Keeps candidates that are closer to the base than to any already selected neighbour,
+     * then fills remaining slots with the best pruned candidates.
+     *
+     * @param candidates candidates ordered by descending similarity to the base
+     */
+    private List<SimilarityMatch> selectNeighbours(List<SimilarityMatch> candidates, int limit) {
+        List<SimilarityMatch> selected = new ArrayList<>(limit);
+        List<SimilarityMatch> pruned = new ArrayList<>();
+
+        for (SimilarityMatch candidate : candidates) {
+            if (selected.size() >= limit) {
+                break;
+            }
+            boolean diverse = true;
+            if (!selected.isEmpty()) {
+                float[] vector = rowData(candidate.row());
+                int offset = rowOffset(candidate.row());
+                double norm = vectors.norm(candidate.row());
+                for (SimilarityMatch chosen : selected) {
+                    if (score(vector, offset, norm, chosen.row()) > candidate.score()) {
+                        diverse = false;
+                        break;
+                    }
+                }
+            }
+            if (diverse) {
+                selected.add(candidate);
+            } else {
+                pruned.add(candidate);
+            }
+        }
+
+        for (int i = 0; i < pruned.size() && selected.size() < limit; i++) {
+            selected.add(pruned.get(i));
+        }
+        return selected;
+    }
+
+    private SimilarityMatch greedySearch(float[] query, int offset, double queryNorm, SimilarityMatch start, int level) {
+        SimilarityMatch current = start;
+        boolean improved = true;
+
+        while (improved) {
+            improved = false;
+            int node = current.row();
+            int[] nodeLinks = links[node][level];
+            for (int i = 0; i < linkCounts[node][level]; i++) {
+                double candidateScore = score(query, offset, queryNorm, nodeLinks[i]);
+                if (candidateScore > current.score()) {
+                    current = new SimilarityMatch(nodeLinks[i], candidateScore);
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer, returning up to {@code ef} nodes ordered by descending score.
+     */
+    private List<SimilarityMatch> searchLayer(float[] query, int offset, double queryNorm,
+                                              SimilarityMatch start, int ef, int level) {
+        BitSet visited = new BitSet(vectors.size());
+        PriorityQueue<SimilarityMatch> candidates = new PriorityQueue<>(BY_SCORE_DESC);
+        PriorityQueue<SimilarityMatch> results = new PriorityQueue<>(BY_SCORE);
+
+        visited.set(start.row());
+        candidates.add(start);
+        results.add(start);
+
+        while (!candidates.isEmpty()) {
+            SimilarityMatch candidate = candidates.poll();
+            if (results.size() >= ef && candidate.score() < results.peek().score()) {
+                break;
+            }
+
+            int node = candidate.row();
+            if (level >= links[node].length) {
+                continue;
+            }
+            int[] nodeLinks = links[node][level];
+            for (int i = 0; i < linkCounts[node][level]; i++) {
+                int neighbour = nodeLinks[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                double neighbourScore = score(query, offset, queryNorm, neighbour);
+                if (results.size() < ef || neighbourScore > results.peek().score()) {
+                    SimilarityMatch match = new SimilarityMatch(neighbour, neighbourScore);
+                    candidates.add(match);
+                    results.add(match);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<SimilarityMatch> ordered = new ArrayList<>(results);
+        ordered.sort(BY_SCORE_DESC);
+        return ordered;
+    }
+
+    private int capacity(int level) {
+        return level == 0 ? parameters.m() * 2 : parameters.m();
+    }
+
+    /**
+     * Returns the array holding a node's row for scoring it against many others: the backing array of
+     * heap vectors, read in place, or one copy of an off-heap row instead of one per comparison.
+     */
+    private float[] rowData(int node) {
+        return vectors.isOffHeap() ? vectors.row(node) : vectors.data();
+    }
+
+    /**
+     * Returns the offset of a node's row within {@link #rowData(int)}.
+     */
+    private int rowOffset(int node) {
+        return vectors.isOffHeap() ? 0 : vectors.offset(node);
+    }
+
+    private double score(float[] query, int offset, double queryNorm, int node) {
+        double nodeNorm = vectors.norm(node);
+        if (queryNorm == 0.0 || nodeNorm == 0.0) {
+            return 0.0;
+        }
+        float dot = vectors.dot(kernel, query, offset, node);
+        return ExactVectorIndex.clamp(dot / (queryNorm * nodeNorm));
+    }
+}
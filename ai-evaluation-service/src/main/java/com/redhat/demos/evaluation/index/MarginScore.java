@@ -0,0 +1,18 @@
+package com.redhat.demos.evaluation.index;
+
+/**
+ * Best negative and best positive match of one query.
+ *
+ * @param negative the most similar negative row, or {@link SimilarityMatch#NONE} if there are no negatives
+ * @param positive the most similar positive row, or {@link SimilarityMatch#NONE} if there are no positives
+ */
+public record MarginScore(SimilarityMatch negative, SimilarityMatch positive) {
+
+    /**
+     * Returns how much closer the query is to its nearest negative than to its nearest positive.
+     * A missing set counts as a similarity of 0.
+     */
+    public double margin() {
+        return negative.score() - positive.score();
+    }
+}
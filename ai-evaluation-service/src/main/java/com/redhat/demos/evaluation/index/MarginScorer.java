@@ -0,0 +1,94 @@
+package com.redhat.demos.evaluation.index;
+
+/**
+ * Fused exact scan over the negative and positive vectors.
+ * The dot products of both sets are written into one array, negatives first, so one pass over the
+ * results finds the best match of each set. Each set is scanned where it is held, without copying
+ * the negatives next to the positives, and scoring the positives costs only their extra rows.
+ */
+public final class MarginScorer {
+
+    private final PackedVectors negatives;
+    private final PackedVectors positives;
+    private final VectorKernel kernel;
+
+    private MarginScorer(PackedVectors negatives, PackedVectors positives, VectorKernel kernel) {
+        this.negatives = negatives;
+        this.positives = positives;
+        this.kernel = kernel;
+    }
+
+    /**
+     * Creates a scorer over both sets.
+     *
+     * @param negatives the negative vectors, whose rows keep their numbering in results
+     * @param positives the positive vectors, whose rows keep their numbering in results
+     * @param kernel the kernel computing the dot products
+     * @return the scorer
+     * @throws IllegalArgumentException if both sets are non-empty and their dimensions differ
+     */
+    public static MarginScorer build(PackedVectors negatives, PackedVectors positives, VectorKernel kernel) {
+        if (!negatives.isEmpty() && !positives.isEmpty() && negatives.dimension() != positives.dimension()) {
+            throw new IllegalArgumentException(
+                String.format("Cannot combine vectors of dimension %d and %d", negatives.dimension(), positives.dimension())
+            );
+        }
+        return new MarginScorer(negatives, positives, kernel);
+    }
+
+    /**
+     * Finds the most similar negative and positive rows of the query in one pass.
+     */
+    public MarginScore score(float[] query) {
+        if (negatives.isEmpty() && positives.isEmpty()) {
+            return new MarginScore(SimilarityMatch.NONE, SimilarityMatch.NONE);
+        }
+
+        double queryNorm = VectorIndex.queryNorm(query, negatives.isEmpty() ? positives : negatives, kernel);
+        if (queryNorm == 0.0) {
+            return new MarginScore(
+                negatives.isEmpty() ? SimilarityMatch.NONE : new SimilarityMatch(0, 0.0),
+                positives.isEmpty() ? SimilarityMatch.NONE : new SimilarityMatch(0, 0.0));
+        }
+
+        int boundary = negatives.size();
+        int size = boundary + positives.size();
+        float[] dotProducts = new float[size];
+        if (!negatives.isEmpty()) {
+            negatives.dotAll(kernel, query, dotProducts);
+        }
+        if (!positives.isEmpty()) {
+            positives.dotAll(kernel, query, dotProducts, boundary);
+        }
+
+        int bestNegative = -1;
+        int bestPositive = -1;
+        double negativeScore = Double.NEGATIVE_INFINITY;
+        double positiveScore = Double.NEGATIVE_INFINITY;
+        for (int row = 0; row < size; row++) {
+            double rowNorm = row < boundary ? negatives.norm(row) : positives.norm(row - boundary);
+            double score = rowNorm == 0.0 ? 0.0 : ExactVectorIndex.clamp(dotProducts[row] / (queryNorm * rowNorm));
+            if (row < boundary) {
+                if (score > negativeScore) {
+                    negativeScore = score;
+                    bestNegative = row;
+                }
+            } else if (score > positiveScore) {
+                positiveScore = score;
+                bestPositive = row - boundary;
+            }
+        }
+
+        return new MarginScore(
+            bestNegative < 0 ? SimilarityMatch.NONE : new SimilarityMatch(bestNegative, negativeScore),
+            bestPositive < 0 ? SimilarityMatch.NONE : new SimilarityMatch(bestPositive, positiveScore));
+    }
+
+    public PackedVectors negatives() {
+        return negatives;
+    }
+
+    public PackedVectors positives() {
+        return positives;
+    }
+}
@@ -0,0 +1,228 @@
+package com.redhat.demos.evaluation.index;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable, pre-parsed set of reference vectors stored row-major in a single contiguous block,
+ * either a heap float array or an off-heap memory segment of little-endian floats (for example a
+ * mapped {@link VectorSnapshot}). Each row's L2 norm is computed once so scoring only needs dot products.
+ */
+public final class PackedVectors {
+
+    /** Element layout of off-heap rows. */
+    public static final ValueLayout.OfFloat FLOAT_LE = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private static final PackedVectors EMPTY = new PackedVectors(0, new float[0], null, new float[0], new UUID[0], new String[0]);
+
+    private final int dimension;
+    private final float[] data;
+    private final MemorySegment segment;
+    private final float[] norms;
+    private final UUID[] ids;
+    private final String[] labels;
+
+    private PackedVectors(int dimension, float[] data, MemorySegment segment, float[] norms, UUID[] ids, String[] labels) {
+        this.dimension = dimension;
+        this.data = data;
+        this.segment = segment;
+        this.norms = norms;
+        this.ids = ids;
+        this.labels = labels;
+    }
+
+    public static PackedVectors empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Packs the given rows into contiguous storage.
+     *
+     * @param dimension the dimension every row must have
+     * @param rows the vectors to pack
+     * @param ids the identifier of each row
+     * @param labels the label of each row
+     * @return the packed vectors
+     * @throws IllegalArgumentException if a row has the wrong dimension or the lists differ in size
+     */
+    public static PackedVectors of(int dimension, List<float[]> rows, List<UUID> ids, List<String> labels) {
+        if (rows.size() != ids.size() || rows.size() != labels.size()) {
+            throw new IllegalArgumentException("Rows, ids and labels must have the same size");
+        }
+
+        int size = rows.size();
+        float[] data = new float[size * dimension];
+        float[] norms = new float[size];
+
+        for (int row = 0; row < size; row++) {
+            float[] vector = rows.get(row);
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException(
+                    String.format("Row %d has dimension %d, expected %d", row, vector.length, dimension)
+                );
+            }
+            System.arraycopy(vector, 0, data, row * dimension, dimension);
+            norms[row] = norm(vector, 0, dimension);
+        }
+
+        return new PackedVectors(dimension, data, null, norms, ids.toArray(new UUID[0]), labels.toArray(new String[0]));
+    }
+
+    /**
+     * Wraps rows already packed row-major into {@code data}, computing their norms.
+     * The array is used as is, so callers must not modify it afterwards.
+     *
+     * @param dimension the dimension of every row
+     * @param data the row-major vector data, {@code ids.length * dimension} floats
+     * @param ids the identifier of each row
+     * @param labels the label of each row
+     * @return the packed vectors
+     * @throws IllegalArgumentException if the array sizes do not agree
+     */
+    public static PackedVectors wrap(int dimension, float[] data, UUID[] ids, String[] labels) {
+        if (ids.length != labels.length || data.length != ids.length * dimension) {
+            throw new IllegalArgumentException("Data, ids and labels must describe the same number of rows");
+        }
+
+        float[] norms = new float[ids.length];
+        for (int row = 0; row < ids.length; row++) {
+            norms[row] = norm(data, row * dimension, dimension);
+        }
+        return new PackedVectors(dimension, data, null, norms, ids, labels);
+    }
+
+    /**
+     * Wraps rows held off-heap as little-endian floats, with norms already computed.
+     *
+     * @param dimension the dimension of every row
+     * @param segment the row-major vector data, {@code ids.length * dimension} floats
+     * @param norms the L2 norm of each row
+     * @param ids the identifier of each row
+     * @param labels the label of each row
+     * @return the packed vectors
+     * @throws IllegalArgumentException if the sizes do not agree
+     */
+    public static PackedVectors offHeap(int dimension, MemorySegment segment, float[] norms, UUID[] ids, String[] labels) {
+        if (ids.length != labels.length || norms.length != ids.length
+                || segment.byteSize() != (long) ids.length * dimension * Float.BYTES) {
+            throw new IllegalArgumentException("Segment, norms, ids and labels must describe the same number of rows");
+        }
+        return new PackedVectors(dimension, null, segment, norms, ids, labels);
+    }
+
+    /**
+     * Computes the L2 norm of {@code length} floats starting at {@code offset}.
+     */
+    public static float norm(float[] vector, int offset, int length) {
+        return (float) Math.sqrt(VectorKernels.preferred().sumOfSquares(vector, offset, length));
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public int size() {
+        return norms.length;
+    }
+
+    public boolean isEmpty() {
+        return norms.length == 0;
+    }
+
+    /**
+     * Returns whether the rows are held in an off-heap segment rather than a heap array.
+     */
+    public boolean isOffHeap() {
+        return segment != null;
+    }
+
+    /**
+     * Returns the backing row-major array. Callers must not modify it.
+     *
+     * @throws IllegalStateException if the rows are held off-heap
+     */
+    public float[] data() {
+        if (segment != null) {
+            throw new IllegalStateException("Vectors are held off-heap");
+        }
+        return data;
+    }
+
+    /**
+     * Returns the number of bytes occupied by the rows.
+     */
+    public long dataBytes() {
+        return (long) size() * dimension * Float.BYTES;
+    }
+
+    /**
+     * Returns a copy of one row.
+     */
+    public float[] row(int row) {
+        float[] copy = new float[dimension];
+        if (segment != null) {
+            MemorySegment.copy(segment, FLOAT_LE, (long) row * dimension * Float.BYTES, copy, 0, dimension);
+        } else {
+            System.arraycopy(data, row * dimension, copy, 0, dimension);
+        }
+        return copy;
+    }
+
+    /**
+     * Computes the dot product of {@code dimension} elements of {@code query} from {@code queryOffset} with a row.
+     */
+    public float dot(VectorKernel kernel, float[] query, int queryOffset, int row) {
+        return segment != null
+            ? kernel.dot(query, queryOffset, segment, (long) row * dimension, dimension)
+            : kernel.dot(query, queryOffset, data, row * dimension, dimension);
+    }
+
+    /**
+     * Computes the dot product of the query with every row, writing results into {@code out}.
+     */
+    public void dotAll(VectorKernel kernel, float[] query, float[] out) {
+        dotAll(kernel, query, out, 0);
+    }
+
+    /**
+     * Computes the dot product of the query with every row, writing the result for row {@code i}
+     * into {@code out[outOffset + i]}.
+     */
+    public void dotAll(VectorKernel kernel, float[] query, float[] out, int outOffset) {
+        if (segment != null) {
+            kernel.dotAll(query, segment, size(), out, outOffset);
+        } else {
+            kernel.dotAll(query, data, size(), out, outOffset);
+        }
+    }
+
+    /**
+     * Copies the rows as little-endian floats into {@code target} starting at {@code byteOffset}.
+     */
+    public void copyTo(MemorySegment target, long byteOffset) {
+        if (segment != null) {
+            MemorySegment.copy(segment, 0, target, byteOffset, dataBytes());
+        } else {
+            MemorySegment.copy(data, 0, target, FLOAT_LE, byteOffset, data.length);
+        }
+    }
+
+    public int offset(int row) {
+        return row * dimension;
+    }
+
+    public float norm(int row) {
+        return norms[row];
+    }
+
+    public UUID id(int row) {
+        return ids[row];
+    }
+
+    public String label(int row) {
+        return labels[row];
+    }
+}
@@ -0,0 +1,208 @@
+package com.redhat.demos.evaluation.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Two-phase scan: every row is scored approximately from a compact quantized copy, then the best
+ * {@code rerank} candidates are re-scored exactly against the float vectors.
+ * INT8 keeps one signed byte per element of each unit-normalized row (a quarter of float32);
+ * BINARY keeps one sign bit per element (a thirty-second) and estimates cosine from the Hamming distance.
+ * Re-scoring reads the float vectors the index was built over; build it over vectors mapped off-heap
+ * so only the quantized copy occupies the heap.
+ */
+public final class QuantizedVectorIndex implements VectorIndex {
+
+    /**
+     * Quantized representation used for the approximate pass.
+     */
+    public enum Quantization {
+        INT8,
+        BINARY
+    }
+
+    private final PackedVectors vectors;
+    private final VectorKernel kernel;
+    private final Quantization quantization;
+    private final int rerank;
+
+    // INT8: row-major codes of the unit-normalized rows and the scale of each row
+    private final byte[] codes;
+    private final float[] scales;
+
+    // BINARY: row-major sign bits, words per row
+    private final long[] bits;
+    private final int words;
+
+    private QuantizedVectorIndex(PackedVectors vectors, VectorKernel kernel, Quantization quantization, int rerank,
+                                 byte[] codes, float[] scales, long[] bits) {
+        this.vectors = vectors;
+        this.kernel = kernel;
+        this.quantization = quantization;
+        this.rerank = rerank;
+        this.codes = codes;
+        this.scales = scales;
+        this.bits = bits;
+        this.words = (vectors.dimension() + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Quantizes the given vectors. They stay referenced for exact re-scoring, so pass vectors mapped
+     * off-heap to keep only the quantized copy on the heap.
+     *
+     * @param vectors the vectors to index, also used for exact re-scoring
+     * @param kernel the kernel used for exact re-scoring
+     * @param quantization the quantized representation
+     * @param rerank the number of approximate candidates re-scored exactly; larger values raise accuracy
+     * @return the index
+     */
+    public static QuantizedVectorIndex build(PackedVectors vectors, VectorKernel kernel,
+                                             Quantization quantization, int rerank) {
+        if (rerank < 1) {
+            throw new IllegalArgumentException("Re-rank candidate count must be positive");
+        }
+
+        int size = vectors.size();
+        int dimension = vectors.dimension();
+
+        return switch (quantization) {
+            case INT8 -> {
+                byte[] codes = new byte[size * dimension];
+                float[] scales = new float[size];
+                for (int row = 0; row < size; row++) {
+                    scales[row] = quantizeRow(vectors.row(row), 0, dimension, vectors.norm(row), codes, row * dimension);
+                }
+                yield new QuantizedVectorIndex(vectors, kernel, quantization, rerank, codes, scales, null);
+            }
+            case BINARY -> {
+                int words = (dimension + Long.SIZE - 1) / Long.SIZE;
+                long[] bits = new long[size * words];
+                for (int row = 0; row < size; row++) {
+                    signBits(vectors.row(row), 0, dimension, bits, row * words);
+                }
+                yield new QuantizedVectorIndex(vectors, kernel, quantization, rerank, null, null, bits);
+            }
+        };
+    }
+
+    @Override
+    public List<SimilarityMatch> search(float[] query, int k) {
+        if (vectors.isEmpty() || k <= 0) {
+            return List.of();
+        }
+        double queryNorm = VectorIndex.queryNorm(query, vectors, kernel);
+        if (queryNorm == 0.0) {
+            // Every row scores 0 against a zero query, as in the exact scan
+            return ExactVectorIndex.top(new double[vectors.size()], k);
+        }
+
+        List<SimilarityMatch> candidates = ExactVectorIndex.top(approximateScores(query, queryNorm), Math.max(k, rerank));
+
+        List<SimilarityMatch> rescored = new ArrayList<>(candidates.size());
+        for (SimilarityMatch candidate : candidates) {
+            rescored.add(new SimilarityMatch(candidate.row(), exactScore(query, queryNorm, candidate.row())));
+        }
+        rescored.sort(Collections.reverseOrder(Comparator.comparingDouble(SimilarityMatch::score)));
+        return rescored.size() > k ? List.copyOf(rescored.subList(0, k)) : rescored;
+    }
+
+    /**
+     * Estimates the cosine similarity of the query against every row from the quantized copy only.
+     */
+    public double[] approximateScores(float[] query, double queryNorm) {
+        int size = vectors.size();
+        int dimension = vectors.dimension();
+        double[] scores = new double[size];
+
+        switch (quantization) {
+            case INT8 -> {
+                byte[] queryCodes = new byte[dimension];
+                float queryScale = quantizeRow(query, 0, dimension, (float) queryNorm, queryCodes, 0);
+                for (int row = 0; row < size; row++) {
+                    int offset = row * dimension;
+                    int dot = 0;
+                    for (int i = 0; i < dimension; i++) {
+                        dot += queryCodes[i] * codes[offset + i];
+                    }
+                    scores[row] = dot * queryScale * scales[row];
+                }
+            }
+            case BINARY -> {
+                long[] queryBits = new long[words];
+                signBits(query, 0, dimension, queryBits, 0);
+                for (int row = 0; row < size; row++) {
+                    int offset = row * words;
+                    int hamming = 0;
+                    for (int w = 0; w < words; w++) {
+                        hamming += Long.bitCount(queryBits[w] ^ bits[offset + w]);
+                    }
+                    // Angle between random-hyperplane signatures is proportional to the Hamming distance
+                    scores[row] = Math.cos(Math.PI * hamming / dimension);
+                }
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Returns the number of bytes held by the quantized copy, excluding the float vectors.
+     */
+    public long quantizedBytes() {
+        return quantization == Quantization.INT8
+            ? (long) codes.length + (long) scales.length * Float.BYTES
+            : (long) bits.length * Long.BYTES;
+    }
+
+    public Quantization quantization() {
+        return quantization;
+    }
+
+    @Override
+    public PackedVectors vectors() {
+        return vectors;
+    }
+
+    @Override
+    public String name() {
+        return quantization == Quantization.INT8 ? "int8" : "binary";
+    }
+
+    private double exactScore(float[] query, double queryNorm, int row) {
+        double rowNorm = vectors.norm(row);
+        if (rowNorm == 0.0) {
+            return 0.0;
+        }
+        float dot = vectors.dot(kernel, query, 0, row);
+        return ExactVectorIndex.clamp(dot / (queryNorm * rowNorm));
+    }
+
+    /**
+     * Quantizes the unit-normalized row symmetrically to [-127, 127] and returns the scale
+     * that maps codes back to the normalized values.
+     */
+    private static float quantizeRow(float[] data, int offset, int dimension, float norm, byte[] out, int outOffset) {
+        if (norm == 0.0f) {
+            return 0.0f;
+        }
+        float maxAbs = 0.0f;
+        for (int i = 0; i < dimension; i++) {
+            maxAbs = Math.max(maxAbs, Math.abs(data[offset + i]));
+        }
+        float scale = maxAbs / norm / 127.0f;
+        float inverse = 1.0f / (norm * scale);
+        for (int i = 0; i < dimension; i++) {
+            out[outOffset + i] = (byte) Math.round(data[offset + i] * inverse);
+        }
+        return scale;
+    }
+
+    private static void signBits(float[] data, int offset, int dimension, long[] out, int outOffset) {
+        for (int i = 0; i < dimension; i++) {
+            if (data[offset + i] > 0.0f) {
+                out[outOffset + i / Long.SIZE] |= 1L << (i % Long.SIZE);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.redhat.demos.evaluation.index;
+
+/**
+ * Portable scalar implementation of {@link VectorKernel}, used when the Vector API is unavailable.
+ */
+public final class ScalarVectorKernel implements VectorKernel {
+
+    public static final ScalarVectorKernel INSTANCE = new ScalarVectorKernel();
+
+    private ScalarVectorKernel() {
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0.0f;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,112 @@
+package com.redhat.demos.evaluation.index;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteOrder;
+
+/**
+ * {@link VectorKernel} backed by the incubating Vector API, using the platform's preferred lane width.
+ * Only loaded when the jdk.incubator.vector module is present; see {@link VectorKernels}.
+ */
+final class SimdVectorKernel implements VectorKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        FloatVector accumulator = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+            accumulator = va.fma(vb, accumulator);
+        }
+
+        float sum = accumulator.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, MemorySegment b, long bIndex, int length) {
+        FloatVector accumulator = FloatVector.zero(SPECIES);
+        int bound = SPECIES.loopBound(length);
+        long byteOffset = bIndex * Float.BYTES;
+        int i = 0;
+
+        for (; i < bound; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+            FloatVector vb = FloatVector.fromMemorySegment(SPECIES, b, byteOffset + (long) i * Float.BYTES, ByteOrder.LITTLE_ENDIAN);
+            accumulator = va.fma(vb, accumulator);
+        }
+
+        float sum = accumulator.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b.getAtIndex(PackedVectors.FLOAT_LE, bIndex + i);
+        }
+        return sum;
+    }
+
+    /**
+     * Scores four rows per pass so each query chunk is loaded once and reused across rows.
+     */
+    @Override
+    public void dotAll(float[] query, float[] matrix, int rows, float[] out, int outOffset) {
+        int dimension = query.length;
+        int bound = SPECIES.loopBound(dimension);
+        int row = 0;
+
+        for (; row + 4 <= rows; row += 4) {
+            int offset0 = row * dimension;
+            int offset1 = offset0 + dimension;
+            int offset2 = offset1 + dimension;
+            int offset3 = offset2 + dimension;
+
+            FloatVector acc0 = FloatVector.zero(SPECIES);
+            FloatVector acc1 = FloatVector.zero(SPECIES);
+            FloatVector acc2 = FloatVector.zero(SPECIES);
+            FloatVector acc3 = FloatVector.zero(SPECIES);
+
+            int i = 0;
+            for (; i < bound; i += SPECIES.length()) {
+                FloatVector q = FloatVector.fromArray(SPECIES, query, i);
+                acc0 = q.fma(FloatVector.fromArray(SPECIES, matrix, offset0 + i), acc0);
+                acc1 = q.fma(FloatVector.fromArray(SPECIES, matrix, offset1 + i), acc1);
+                acc2 = q.fma(FloatVector.fromArray(SPECIES, matrix, offset2 + i), acc2);
+                acc3 = q.fma(FloatVector.fromArray(SPECIES, matrix, offset3 + i), acc3);
+            }
+
+            float sum0 = acc0.reduceLanes(VectorOperators.ADD);
+            float sum1 = acc1.reduceLanes(VectorOperators.ADD);
+            float sum2 = acc2.reduceLanes(VectorOperators.ADD);
+            float sum3 = acc3.reduceLanes(VectorOperators.ADD);
+            for (; i < dimension; i++) {
+                sum0 += query[i] * matrix[offset0 + i];
+                sum1 += query[i] * matrix[offset1 + i];
+                sum2 += query[i] * matrix[offset2 + i];
+                sum3 += query[i] * matrix[offset3 + i];
+            }
+
+            out[outOffset + row] = sum0;
+            out[outOffset + row + 1] = sum1;
+            out[outOffset + row + 2] = sum2;
+            out[outOffset + row + 3] = sum3;
+        }
+
+        for (; row < rows; row++) {
+            out[outOffset + row] = dot(query, 0, matrix, row * dimension, dimension);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+}
@@ -0,0 +1,16 @@
+package com.redhat.demos.evaluation.index;
+
+/**
+ * A reference vector row and its cosine similarity to a query vector.
+ *
+ * @param row the row within the scored vector set, or -1 when nothing matched
+ * @param score the cosine similarity
+ */
+public record SimilarityMatch(int row, double score) {
+
+    public static final SimilarityMatch NONE = new SimilarityMatch(-1, 0.0);
+
+    public boolean isNone() {
+        return row < 0;
+    }
+}
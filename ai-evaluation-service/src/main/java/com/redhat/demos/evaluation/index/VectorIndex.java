@@ -0,0 +1,66 @@
+package com.redhat.demos.evaluation.index;
+
+import java.util.List;
+
+/**
+ * Cosine-similarity search over an immutable set of reference vectors.
+ */
+public interface VectorIndex {
+
+    /**
+     * Returns the {@code k} rows most similar to the query, best first.
+     *
+     * @param query the query vector
+     * @param k the maximum number of matches to return
+     * @return up to {@code k} matches ordered by descending score
+     * @throws IllegalArgumentException if the query dimension does not match the indexed vectors
+     */
+    List<SimilarityMatch> search(float[] query, int k);
+
+    /**
+     * Returns the single most similar row, or {@link SimilarityMatch#NONE} if the index is empty.
+     */
+    default SimilarityMatch findMostSimilar(float[] query) {
+        List<SimilarityMatch> matches = search(query, 1);
+        return matches.isEmpty() ? SimilarityMatch.NONE : matches.get(0);
+    }
+
+    /**
+     * Returns a row scoring above {@code threshold} as soon as one is found, for callers that only need
+     * the threshold decision. If no row exceeds the threshold the result is the most similar row, as
+     * from {@link #findMostSimilar(float[])}. Indexes without an early-exit scan return the most similar row.
+     *
+     * @param query the query vector
+     * @param threshold the score a match must exceed to end the scan
+     * @return the first match above the threshold, otherwise the most similar row
+     */
+    default SimilarityMatch findFirstAbove(float[] query, double threshold) {
+        return findMostSimilar(query);
+    }
+
+    /**
+     * Returns the vectors this index was built over; match rows refer to rows of this set.
+     */
+    PackedVectors vectors();
+
+    /**
+     * Returns a short name identifying the index type, used in logs and metrics.
+     */
+    String name();
+
+    /**
+     * Validates the query against the indexed dimension and returns its L2 norm.
+     */
+    static double queryNorm(float[] query, PackedVectors vectors, VectorKernel kernel) {
+        if (query == null) {
+            throw new IllegalArgumentException("Vectors cannot be null");
+        }
+        if (query.length != vectors.dimension()) {
+            throw new IllegalArgumentException(
+                String.format("Vector dimensions must match. Got %d and %d",
+                    query.length, vectors.dimension())
+            );
+        }
+        return Math.sqrt(kernel.sumOfSquares(query, 0, query.length));
+    }
+}
@@ -0,0 +1,63 @@
+package com.redhat.demos.evaluation.index;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Low-level float vector arithmetic over array slices and off-heap segments of little-endian floats.
+ * Implementations accumulate in float precision, which is ample for normalized embeddings.
+ */
+public interface VectorKernel {
+
+    /**
+     * Computes the dot product of {@code length} elements of {@code a} and {@code b}
+     * starting at the given offsets.
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * Computes the sum of squares of {@code length} elements of {@code a} starting at {@code offset}.
+     */
+    default float sumOfSquares(float[] a, int offset, int length) {
+        return dot(a, offset, a, offset, length);
+    }
+
+    /**
+     * Computes the dot product of {@code query} with each of the first {@code rows} rows of a
+     * row-major {@code matrix} whose row length is {@code query.length}, writing results into {@code out}
+     * from {@code outOffset}.
+     */
+    default void dotAll(float[] query, float[] matrix, int rows, float[] out, int outOffset) {
+        int dimension = query.length;
+        for (int row = 0; row < rows; row++) {
+            out[outOffset + row] = dot(query, 0, matrix, row * dimension, dimension);
+        }
+    }
+
+    /**
+     * Computes the dot product of {@code length} elements of {@code a} from {@code aOffset} with
+     * little-endian floats of {@code b} starting at float index {@code bIndex}.
+     */
+    default float dot(float[] a, int aOffset, MemorySegment b, long bIndex, int length) {
+        float sum = 0.0f;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b.getAtIndex(PackedVectors.FLOAT_LE, bIndex + i);
+        }
+        return sum;
+    }
+
+    /**
+     * Computes the dot product of {@code query} with each of the first {@code rows} rows of an off-heap
+     * row-major {@code matrix} of little-endian floats, writing results into {@code out} from {@code outOffset}.
+     */
+    default void dotAll(float[] query, MemorySegment matrix, int rows, float[] out, int outOffset) {
+        int dimension = query.length;
+        for (int row = 0; row < rows; row++) {
+            out[outOffset + row] = dot(query, 0, matrix, (long) row * dimension, dimension);
+        }
+    }
+
+    /**
+     * Returns a short name identifying the implementation, used in logs and metrics.
+     */
+    String name();
+}
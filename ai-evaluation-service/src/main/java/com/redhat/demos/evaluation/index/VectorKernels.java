@@ -0,0 +1,45 @@
+package com.redhat.demos.evaluation.index;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Selects the fastest available {@link VectorKernel}.
+ * The SIMD kernel requires the JVM to be started with {@code --add-modules jdk.incubator.vector};
+ * otherwise the scalar kernel is used.
+ */
+public final class VectorKernels {
+
+    private static final Logger LOG = Logger.getLogger(VectorKernels.class);
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final VectorKernel PREFERRED = selectPreferred();
+
+    private VectorKernels() {
+    }
+
+    /**
+     * Returns the SIMD kernel when the Vector API is available, otherwise the scalar kernel.
+     */
+    public static VectorKernel preferred() {
+        return PREFERRED;
+    }
+
+    public static VectorKernel scalar() {
+        return ScalarVectorKernel.INSTANCE;
+    }
+
+    private static VectorKernel selectPreferred() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            LOG.infof("Module %s not present, using scalar vector kernel", VECTOR_MODULE);
+            return ScalarVectorKernel.INSTANCE;
+        }
+
+        try {
+            VectorKernel kernel = new SimdVectorKernel();
+            LOG.infof("Using %s vector kernel", kernel.name());
+            return kernel;
+        } catch (LinkageError e) {
+            LOG.warnf("Vector API unavailable (%s), using scalar vector kernel", e.getMessage());
+            return ScalarVectorKernel.INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.redhat.demos.evaluation.index;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Memory-mapped file snapshot of a {@link PackedVectors} set.
+ * Mapping a snapshot leaves the rows in the page cache, outside the Java heap and shared by every
+ * process mapping the same file, so startup cost does not grow with the number of rows.
+ *
+ * <p>Layout, all little-endian: a 64-byte header (magic, format version, dimension, row count,
+ * source version, labels offset), the row-major float rows, the row norms, the row ids as two longs
+ * each, then each label as an int byte length followed by UTF-8 bytes.</p>
+ */
+public final class VectorSnapshot {
+
+    private static final int MAGIC = 0x4E565331; // "NVS1"
+    private static final int FORMAT_VERSION = 1;
+    private static final long HEADER_BYTES = 64;
+
+    private static final ValueLayout.OfInt INT_LE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private VectorSnapshot() {
+    }
+
+    /**
+     * Writes a snapshot, replacing any existing file atomically so concurrent readers keep their mapping.
+     *
+     * @param path the snapshot file
+     * @param vectors the vectors to write
+     * @param sourceVersion an identifier of the source data, checked when the snapshot is mapped
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, PackedVectors vectors, long sourceVersion) throws IOException {
+        int size = vectors.size();
+        byte[][] labels = new byte[size][];
+        long labelBytes = 0;
+        for (int row = 0; row < size; row++) {
+            labels[row] = vectors.label(row) == null ? new byte[0] : vectors.label(row).getBytes(StandardCharsets.UTF_8);
+            labelBytes += Integer.BYTES + labels[row].length;
+        }
+
+        long normsOffset = HEADER_BYTES + vectors.dataBytes();
+        long idsOffset = normsOffset + (long) size * Float.BYTES;
+        long labelsOffset = idsOffset + (long) size * 2 * Long.BYTES;
+        long fileSize = labelsOffset + labelBytes;
+
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 Arena arena = Arena.ofConfined()) {
+                MemorySegment file = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize, arena);
+
+                file.set(INT_LE, 0, MAGIC);
+                file.set(INT_LE, 4, FORMAT_VERSION);
+                file.set(INT_LE, 8, vectors.dimension());
+                file.set(INT_LE, 12, size);
+                file.set(LONG_LE, 16, sourceVersion);
+                file.set(LONG_LE, 24, labelsOffset);
+
+                vectors.copyTo(file, HEADER_BYTES);
+                for (int row = 0; row < size; row++) {
+                    file.set(PackedVectors.FLOAT_LE, normsOffset + (long) row * Float.BYTES, vectors.norm(row));
+                    UUID id = vectors.id(row);
+                    file.set(LONG_LE, idsOffset + (long) row * 2 * Long.BYTES, id.getMostSignificantBits());
+                    file.set(LONG_LE, idsOffset + (long) row * 2 * Long.BYTES + Long.BYTES, id.getLeastSignificantBits());
+                }
+
+                long offset = labelsOffset;
+                for (byte[] label : labels) {
+                    file.set(INT_LE, offset, label.length);
+                    MemorySegment.copy(label, 0, file, ValueLayout.JAVA_BYTE, offset + Integer.BYTES, label.length);
+                    offset += Integer.BYTES + label.length;
+                }
+
+                file.force();
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Maps a snapshot read-only. The mapping is released once the returned vectors are unreachable.
+     *
+     * @param path the snapshot file
+     * @param expectedSourceVersion the source version the snapshot must have been written from
+     * @return the mapped vectors, or empty if the file is missing or was written from a different source version
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static Optional<PackedVectors> map(Path path, long expectedSourceVersion) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+
+            if (file.get(INT_LE, 0) != MAGIC || file.get(INT_LE, 4) != FORMAT_VERSION) {
+                throw new IOException("Snapshot " + path + " has an unknown format");
+            }
+            if (file.get(LONG_LE, 16) != expectedSourceVersion) {
+                return Optional.empty();
+            }
+
+            int dimension = file.get(INT_LE, 8);
+            int size = file.get(INT_LE, 12);
+            long dataBytes = (long) size * dimension * Float.BYTES;
+            long normsOffset = HEADER_BYTES + dataBytes;
+            long idsOffset = normsOffset + (long) size * Float.BYTES;
+            long labelsOffset = file.get(LONG_LE, 24);
+            if (labelsOffset != idsOffset + (long) size * 2 * Long.BYTES || labelsOffset > file.byteSize()) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+
+            float[] norms = new float[size];
+            MemorySegment.copy(file, PackedVectors.FLOAT_LE, normsOffset, norms, 0, size);
+
+            UUID[] ids = new UUID[size];
+            for (int row = 0; row < size; row++) {
+                long offset = idsOffset + (long) row * 2 * Long.BYTES;
+                ids[row] = new UUID(file.get(LONG_LE, offset), file.get(LONG_LE, offset + Long.BYTES));
+            }
+
+            String[] labels = new String[size];
+            long offset = labelsOffset;
+            for (int row = 0; row < size; row++) {
+                int length = file.get(INT_LE, offset);
+                byte[] label = new byte[length];
+                MemorySegment.copy(file, ValueLayout.JAVA_BYTE, offset + Integer.BYTES, label, 0, length);
+                labels[row] = new String(label, StandardCharsets.UTF_8);
+                offset += Integer.BYTES + length;
+            }
+
+            return Optional.of(PackedVectors.offHeap(dimension, file.asSlice(HEADER_BYTES, dataBytes), norms, ids, labels));
+        }
+    }
+}
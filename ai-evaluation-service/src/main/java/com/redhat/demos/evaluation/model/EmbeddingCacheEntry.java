@@ -0,0 +1,35 @@
+package com.redhat.demos.evaluation.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "embedding_cache")
+public class EmbeddingCacheEntry extends PanacheEntityBase {
+
+    @Id
+    @Column(name = "cache_key", updatable = false, nullable = false, length = 64)
+    public String cacheKey;
+
+    @NotNull(message = "Model name cannot be null")
+    @Column(name = "model_name", nullable = false, length = 255)
+    public String modelName;
+
+    /**
+     * Embedding as little-endian float32, see {@link com.redhat.demos.evaluation.util.VectorCodec}.
+     */
+    @NotNull(message = "Vector bytes cannot be null")
+    @Column(name = "vector_bytes", nullable = false, columnDefinition = "bytea")
+    public byte[] vectorBytes;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    public LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -2,8 +2,11 @@ package com.redhat.demos.evaluation.model;
 
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
+import com.redhat.demos.evaluation.util.VectorCodec;
+import com.redhat.demos.evaluation.util.VectorDataParser;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.eclipse.microprofile.config.ConfigProvider;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -12,6 +15,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "evaluation_vectors")
+@EntityListeners(EvaluationVectorListener.class)
 public class EvaluationVector extends PanacheEntityBase {
 
     @Id
@@ -19,11 +23,21 @@ public class EvaluationVector extends PanacheEntityBase {
     @Column(name = "id", updatable = false, nullable = false)
     public UUID id;
 
-    @NotNull(message = "Vector data cannot be null")
+    /**
+     * Legacy JSON form, {"embedding": [...]}. Accepted on write and encoded into
+     * {@link #vectorBytes} before the row is stored, after which it is cleared.
+     */
     @JdbcTypeCode(SqlTypes.JSON)
-    @Column(name = "vector_data", nullable = false, columnDefinition = "jsonb")
+    @Column(name = "vector_data", columnDefinition = "jsonb")
     public String vectorData;
 
+    @Column(name = "vector_bytes", nullable = false, columnDefinition = "bytea")
+    public byte[] vectorBytes;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "vector_encoding", nullable = false, length = 10)
+    public VectorEncoding vectorEncoding;
+
     @NotNull(message = "Vector type cannot be null")
     @Enumerated(EnumType.STRING)
     @Column(name = "vector_type", nullable = false)
@@ -37,8 +51,42 @@ public class EvaluationVector extends PanacheEntityBase {
     @Column(name = "created_at", nullable = false, updatable = false)
     public LocalDateTime createdAt;
 
+    /**
+     * Decodes the stored embedding.
+     */
+    public float[] vector() {
+        return VectorCodec.decode(vectorBytes, vectorEncoding);
+    }
+
+    /**
+     * Stores an embedding in the given binary layout.
+     */
+    public void setVector(float[] vector, VectorEncoding encoding) {
+        this.vectorBytes = VectorCodec.encode(vector, encoding);
+        this.vectorEncoding = encoding;
+        this.vectorData = null;
+    }
+
     @PrePersist
     public void prePersist() {
         this.createdAt = LocalDateTime.now();
+        encodeVectorData();
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        encodeVectorData();
+    }
+
+    private void encodeVectorData() {
+        if (vectorData == null) {
+            return;
+        }
+        VectorEncoding encoding = vectorEncoding != null
+            ? vectorEncoding
+            : ConfigProvider.getConfig()
+                .getOptionalValue("evaluation.vectors.storage-encoding", VectorEncoding.class)
+                .orElse(VectorEncoding.FLOAT32);
+        setVector(VectorDataParser.parseVectorData(vectorData), encoding);
     }
 }
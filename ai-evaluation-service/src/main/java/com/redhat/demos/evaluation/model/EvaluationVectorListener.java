@@ -0,0 +1,21 @@
+package com.redhat.demos.evaluation.model;
+
+import com.redhat.demos.evaluation.service.NegativeVectorIndex;
+import jakarta.enterprise.inject.spi.CDI;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Invalidates the in-memory negative vector index whenever an EvaluationVector is written.
+ * Bulk HQL statements bypass entity callbacks and must call NegativeVectorIndex.invalidate() directly.
+ */
+public class EvaluationVectorListener {
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(EvaluationVector vector) {
+        CDI.current().select(NegativeVectorIndex.class).get().invalidate();
+    }
+}
@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "thought_evaluations")
+@Table(name = "thought_evaluations", uniqueConstraints = @UniqueConstraint(
+    name = "uq_thought_evaluations_thought_content", columnNames = {"thought_id", "content_hash"}))
 public class ThoughtEvaluation extends PanacheEntityBase {
 
     @Id
@@ -32,6 +33,12 @@ public class ThoughtEvaluation extends PanacheEntityBase {
     @Column(name = "similarity_score", nullable = false, precision = 5, scale = 4)
     public BigDecimal similarityScore;
 
+    /**
+     * Hex SHA-256 of the evaluated content; a thought is evaluated at most once per content.
+     */
+    @Column(name = "content_hash", length = 64)
+    public String contentHash;
+
     @Column(name = "evaluated_at", nullable = false, updatable = false)
     public LocalDateTime evaluatedAt;
 
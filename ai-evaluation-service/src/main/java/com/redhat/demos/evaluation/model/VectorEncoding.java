@@ -0,0 +1,13 @@
+package com.redhat.demos.evaluation.model;
+
+/**
+ * Binary layouts of a stored embedding, all little-endian.
+ */
+public enum VectorEncoding {
+    /** 4 bytes per element, exact. */
+    FLOAT32,
+    /** 2 bytes per element, IEEE 754 half precision. */
+    FLOAT16,
+    /** A float32 scale followed by 1 signed byte per element. */
+    INT8
+}
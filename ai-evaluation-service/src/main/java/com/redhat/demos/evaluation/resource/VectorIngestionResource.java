@@ -0,0 +1,57 @@
+package com.redhat.demos.evaluation.resource;
+
+import com.redhat.demos.evaluation.exception.ErrorResponse;
+import com.redhat.demos.evaluation.service.IngestionJob;
+import com.redhat.demos.evaluation.service.VectorIngestionService;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Bulk upload of evaluation vectors as NDJSON, one {"label", "type", "text" | "embedding"} object per line.
+ * Uploads are processed in the background; the returned Location reports progress.
+ */
+@Path("/vectors/ingestions")
+@Produces(MediaType.APPLICATION_JSON)
+public class VectorIngestionResource {
+
+    @Inject
+    VectorIngestionService ingestionService;
+
+    @POST
+    @Consumes({"application/x-ndjson", MediaType.TEXT_PLAIN, MediaType.APPLICATION_OCTET_STREAM})
+    public Response startIngestion(
+            InputStream body,
+            @QueryParam("replace") @DefaultValue("false") boolean replace,
+            @Context UriInfo uriInfo) throws IOException {
+
+        IngestionJob job = ingestionService.start(body, replace);
+
+        return Response.accepted(job.status())
+                .location(uriInfo.getAbsolutePathBuilder().path(job.id().toString()).build())
+                .build();
+    }
+
+    @GET
+    @Path("/{id}")
+    public Response getIngestion(@PathParam("id") String idStr) {
+        try {
+            UUID id = UUID.fromString(idStr);
+
+            return ingestionService.find(id)
+                    .map(job -> Response.ok(job.status()).build())
+                    .orElseGet(() -> Response.status(Response.Status.NOT_FOUND).build());
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(new ErrorResponse("Invalid UUID format for ingestion id", Response.Status.BAD_REQUEST.getStatusCode()))
+                    .build();
+        }
+    }
+}
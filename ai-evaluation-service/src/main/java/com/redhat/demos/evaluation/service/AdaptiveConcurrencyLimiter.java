@@ -0,0 +1,183 @@
+package com.redhat.demos.evaluation.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Vegas-style adaptive concurrency limit for calls to a remote server.
+ * Each completed call compares its latency with the lowest latency seen to estimate how many calls are
+ * queued at the server: the limit grows by one while that queue is short, shrinks by one once it is
+ * long, and is cut multiplicatively when a call fails. The limit therefore settles near the point
+ * where extra concurrency only adds latency.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    /** Estimated queued calls below which the limit grows. */
+    static final int ALPHA = 3;
+    /** Estimated queued calls above which the limit shrinks. */
+    static final int BETA = 6;
+    /** Factor applied to the limit when a call fails. */
+    static final double BACKOFF = 0.9;
+    /** Samples after which the lowest latency is re-measured, so the baseline follows the server. */
+    static final int PROBE_INTERVAL = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final LongSupplier clock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    /**
+     * @param initialLimit the limit before any call has completed
+     * @param minLimit the lowest the limit can fall to
+     * @param maxLimit the highest the limit can grow to
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, LongSupplier clock) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.clock = clock;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Waits until a call may start.
+     *
+     * @param timeout the longest to wait
+     * @param unit the unit of {@code timeout}
+     * @return the permit to complete once the call ends, or null if none became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Permit acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = available.awaitNanos(remaining);
+            }
+            inFlight++;
+            return new Permit(clock.getAsLong());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the lowest latency seen since the last probe, or 0 if no call has completed since.
+     */
+    public long minRttNanos() {
+        lock.lock();
+        try {
+            return minRttNanos == Long.MAX_VALUE ? 0 : minRttNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            int startedInFlight = inFlight;
+            inFlight--;
+            update(rttNanos, startedInFlight, dropped);
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rttNanos, int startedInFlight, boolean dropped) {
+        if (++samples >= PROBE_INTERVAL) {
+            samples = 0;
+            minRttNanos = Long.MAX_VALUE;
+        }
+
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            return;
+        }
+
+        minRttNanos = Math.min(minRttNanos, Math.max(rttNanos, 1));
+        if (startedInFlight * 2 < limit) {
+            // Too few calls to tell whether the server could take more
+            return;
+        }
+
+        double queued = limit * (1.0 - (double) minRttNanos / Math.max(rttNanos, 1));
+        if (queued < ALPHA) {
+            limit = Math.min(maxLimit, limit + 1);
+        } else if (queued > BETA) {
+            limit = Math.max(minLimit, limit - 1);
+        }
+    }
+
+    /**
+     * One admitted call. Exactly one of {@link #success()} or {@link #dropped()} must be called.
+     */
+    public final class Permit {
+
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * Releases the permit and feeds the call's latency into the limit.
+         */
+        public void success() {
+            release(false);
+        }
+
+        /**
+         * Releases the permit after a failed or timed-out call, backing the limit off.
+         */
+        public void dropped() {
+            release(true);
+        }
+
+        private void release(boolean dropped) {
+            if (released) {
+                return;
+            }
+            released = true;
+            AdaptiveConcurrencyLimiter.this.release(clock.getAsLong() - startNanos, dropped);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.redhat.demos.evaluation.service;
+
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-batching stage in front of the embedding model.
+ * Collects concurrent requests for up to {@code max-size} texts or {@code max-wait}, issues a single
+ * {@link EmbeddingModel#embedAll(List)} call and completes each caller's future with its own vector.
+ * Batches are sent through {@link EmbeddingClient}, so each one counts as a single call against its limits.
+ */
+@ApplicationScoped
+public class EmbeddingBatcher {
+
+    private static final Logger LOG = Logger.getLogger(EmbeddingBatcher.class);
+
+    @Inject
+    EmbeddingClient embeddingClient;
+
+    @ConfigProperty(name = "evaluation.embedding.batch.max-size", defaultValue = "32")
+    int maxBatchSize;
+
+    @ConfigProperty(name = "evaluation.embedding.batch.max-wait", defaultValue = "10ms")
+    Duration maxWait;
+
+    private final BlockingQueue<PendingEmbedding> queue = new LinkedBlockingQueue<>();
+    private ExecutorService batchExecutor;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    @PostConstruct
+    void start() {
+        running = true;
+        batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        dispatcher = Thread.ofPlatform().daemon().name("embedding-batcher").start(this::dispatchLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        dispatcher.interrupt();
+        batchExecutor.shutdown();
+        List<PendingEmbedding> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(pending -> pending.future.completeExceptionally(
+            new IllegalStateException("Embedding batcher is shutting down")));
+    }
+
+    /**
+     * Queues a text for the next batch.
+     *
+     * @param text the text to embed
+     * @return a future completed with the embedding vector or the batch failure
+     */
+    public CompletableFuture<float[]> submit(String text) {
+        PendingEmbedding pending = new PendingEmbedding(text, new CompletableFuture<>());
+        queue.add(pending);
+        return pending.future;
+    }
+
+    /**
+     * Embeds a list of texts with as few embedAll calls as the configured batch size allows.
+     *
+     * @param texts the texts to embed
+     * @return vectors in the same order as the texts
+     */
+    public List<float[]> embedAll(List<String> texts) {
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (int start = 0; start < texts.size(); start += maxBatchSize) {
+            List<String> chunk = texts.subList(start, Math.min(start + maxBatchSize, texts.size()));
+            vectors.addAll(callModel(chunk));
+        }
+        return vectors;
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                List<PendingEmbedding> batch = nextBatch();
+                batchExecutor.execute(() -> process(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Blocks for the first request, then collects more until the batch is full or max-wait has elapsed.
+     */
+    private List<PendingEmbedding> nextBatch() throws InterruptedException {
+        List<PendingEmbedding> batch = new ArrayList<>(maxBatchSize);
+        batch.add(queue.take());
+
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                break;
+            }
+            PendingEmbedding next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void process(List<PendingEmbedding> batch) {
+        try {
+            List<float[]> vectors = callModel(batch.stream().map(PendingEmbedding::text).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(vectors.get(i));
+            }
+        } catch (Exception e) {
+            LOG.errorf(e, "Embedding batch of %d texts failed", batch.size());
+            batch.forEach(pending -> pending.future.completeExceptionally(e));
+        }
+    }
+
+    private List<float[]> callModel(List<String> texts) {
+        List<float[]> vectors = embeddingClient.embedAll(texts);
+        LOG.debugf("Embedded batch of %d texts", texts.size());
+        return vectors;
+    }
+
+    private record PendingEmbedding(String text, CompletableFuture<float[]> future) {
+    }
+}
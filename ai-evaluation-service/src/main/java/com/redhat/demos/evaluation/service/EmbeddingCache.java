@@ -0,0 +1,206 @@
+package com.redhat.demos.evaluation.service;
+
+import com.redhat.demos.evaluation.model.EmbeddingCacheEntry;
+import com.redhat.demos.evaluation.model.VectorEncoding;
+import com.redhat.demos.evaluation.util.VectorCodec;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded cache of embeddings keyed by a SHA-256 hash of the model name and normalized content.
+ * The in-memory tier is the Caffeine-backed "embeddings" cache (W-TinyLFU eviction, Micrometer stats);
+ * an optional persistent tier in the embedding_cache table survives restarts.
+ * Cached vectors are shared and must not be modified by callers.
+ */
+@ApplicationScoped
+public class EmbeddingCache {
+
+    private static final Logger LOG = Logger.getLogger(EmbeddingCache.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Inject
+    @CacheName("embeddings")
+    Cache cache;
+
+    @ConfigProperty(name = "quarkus.langchain4j.openai.embedding-model.model-name", defaultValue = "text-embedding-ada-002")
+    String modelName;
+
+    @ConfigProperty(name = "evaluation.embedding.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "evaluation.embedding.cache.persistent", defaultValue = "false")
+    boolean persistent;
+
+    /**
+     * Returns the cached embedding for the text, computing it with {@code loader} on a miss.
+     * Concurrent misses for the same key share a single load.
+     *
+     * @param text the text to embed
+     * @param loader computes the embedding on a cache miss
+     * @return the embedding vector
+     */
+    public float[] get(String text, Function<String, float[]> loader) {
+        if (!enabled) {
+            return loader.apply(text);
+        }
+
+        String key = key(text);
+        return cache.<String, float[]>get(key, k -> load(k, text, loader)).await().indefinitely();
+    }
+
+    /**
+     * Returns cached embeddings for several texts, computing all misses with a single
+     * {@code loader} call. Duplicate texts within the list are loaded once.
+     *
+     * @param texts the texts to embed
+     * @param loader computes embeddings for the missing texts, in order
+     * @return vectors in the same order as the texts
+     */
+    public List<float[]> getAll(List<String> texts, Function<List<String>, List<float[]>> loader) {
+        if (!enabled) {
+            return loader.apply(texts);
+        }
+
+        CaffeineCache caffeine = cache.as(CaffeineCache.class);
+        float[][] results = new float[texts.size()][];
+        Map<String, String> missingTexts = new LinkedHashMap<>();
+        Map<String, List<Integer>> missingPositions = new HashMap<>();
+
+        for (int i = 0; i < texts.size(); i++) {
+            String key = key(texts.get(i));
+            float[] cached = cachedValue(caffeine, key);
+            if (cached == null && persistent) {
+                cached = findPersisted(key);
+                if (cached != null) {
+                    caffeine.put(key, CompletableFuture.completedFuture(cached));
+                }
+            }
+
+            if (cached != null) {
+                results[i] = cached;
+            } else {
+                missingTexts.putIfAbsent(key, texts.get(i));
+                missingPositions.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        if (!missingTexts.isEmpty()) {
+            List<String> keys = new ArrayList<>(missingTexts.keySet());
+            List<float[]> loaded = loader.apply(new ArrayList<>(missingTexts.values()));
+            for (int j = 0; j < keys.size(); j++) {
+                String key = keys.get(j);
+                float[] vector = loaded.get(j);
+                caffeine.put(key, CompletableFuture.completedFuture(vector));
+                if (persistent) {
+                    persist(key, vector);
+                }
+                for (int position : missingPositions.get(key)) {
+                    results[position] = vector;
+                }
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Returns the cache key for a text: the hex SHA-256 of the model name and normalized content.
+     */
+    public String key(String text) {
+        return hash(modelName + '\n' + normalize(text));
+    }
+
+    /**
+     * Normalizes content so trivially different copies of a text share a cache entry:
+     * Unicode NFC, trimmed, with runs of whitespace collapsed to a single space.
+     */
+    public static String normalize(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).trim();
+        return WHITESPACE.matcher(normalized).replaceAll(" ");
+    }
+
+    static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static float[] cachedValue(CaffeineCache caffeine, String key) {
+        CompletableFuture<float[]> cached = caffeine.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        try {
+            return cached.join();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private float[] load(String key, String text, Function<String, float[]> loader) {
+        if (persistent) {
+            float[] stored = findPersisted(key);
+            if (stored != null) {
+                return stored;
+            }
+        }
+
+        float[] vector = loader.apply(text);
+
+        if (persistent) {
+            persist(key, vector);
+        }
+        return vector;
+    }
+
+    private float[] findPersisted(String key) {
+        try {
+            EmbeddingCacheEntry entry = QuarkusTransaction.requiringNew()
+                .call(() -> EmbeddingCacheEntry.<EmbeddingCacheEntry>findById(key));
+            return entry == null ? null : VectorCodec.decode(entry.vectorBytes, VectorEncoding.FLOAT32);
+        } catch (Exception e) {
+            LOG.warnf("Failed to read persisted embedding %s: %s", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void persist(String key, float[] vector) {
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                if (EmbeddingCacheEntry.findById(key) == null) {
+                    EmbeddingCacheEntry entry = new EmbeddingCacheEntry();
+                    entry.cacheKey = key;
+                    entry.modelName = modelName;
+                    entry.vectorBytes = VectorCodec.encode(vector, VectorEncoding.FLOAT32);
+                    entry.persist();
+                }
+            });
+        } catch (Exception e) {
+            LOG.warnf("Failed to persist embedding %s: %s", key, e.getMessage());
+        }
+    }
+}
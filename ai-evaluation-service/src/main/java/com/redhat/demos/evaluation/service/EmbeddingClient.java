@@ -0,0 +1,177 @@
+package com.redhat.demos.evaluation.service;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.Bulkhead;
+import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every call to the embedding model goes through this client.
+ *
+ * <ul>
+ *   <li>An {@link AdaptiveConcurrencyLimiter} admits calls up to a limit that tracks the server's latency.
+ *       Calls over the limit wait up to {@code max-wait}, then fail with {@link EmbeddingOverloadedException}.</li>
+ *   <li>The bulkhead is a hard cap on callers, both admitted and waiting.</li>
+ *   <li>The circuit breaker fails fast while the server keeps failing. Limiter rejections are load
+ *       shedding and do not count as failures.</li>
+ * </ul>
+ *
+ * <p>Annotation values can be overridden with MicroProfile Fault Tolerance keys, for example
+ * {@code com.redhat.demos.evaluation.service.EmbeddingClient/CircuitBreaker/delay}.</p>
+ */
+@ApplicationScoped
+@Bulkhead(64)
+@CircuitBreaker(requestVolumeThreshold = 20, failureRatio = 0.5, delay = 5000, successThreshold = 2,
+    skipOn = EmbeddingOverloadedException.class)
+public class EmbeddingClient {
+
+    private static final Logger LOG = Logger.getLogger(EmbeddingClient.class);
+
+    @Inject
+    EmbeddingModel embeddingModel;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "evaluation.embedding.limiter.enabled", defaultValue = "true")
+    boolean limiterEnabled;
+
+    @ConfigProperty(name = "evaluation.embedding.limiter.initial-limit", defaultValue = "8")
+    int initialLimit;
+
+    @ConfigProperty(name = "evaluation.embedding.limiter.min-limit", defaultValue = "1")
+    int minLimit;
+
+    @ConfigProperty(name = "evaluation.embedding.limiter.max-limit", defaultValue = "32")
+    int maxLimit;
+
+    @ConfigProperty(name = "evaluation.embedding.limiter.max-wait", defaultValue = "5s")
+    Duration maxWait;
+
+    private AdaptiveConcurrencyLimiter limiter;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        if (!limiterEnabled) {
+            return;
+        }
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit);
+
+        Gauge.builder("evaluation.embedding.limiter.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+            .description("Concurrent embedding calls currently allowed")
+            .register(registry);
+        Gauge.builder("evaluation.embedding.limiter.in.flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+            .description("Embedding calls in progress")
+            .register(registry);
+        TimeGauge.builder("evaluation.embedding.limiter.min.latency", limiter, TimeUnit.NANOSECONDS,
+                AdaptiveConcurrencyLimiter::minRttNanos)
+            .description("Lowest embedding call latency, the baseline for queueing at the model server")
+            .register(registry);
+        rejected = Counter.builder("evaluation.embedding.limiter.rejected")
+            .description("Embedding calls refused after waiting max-wait for the limiter")
+            .register(registry);
+    }
+
+    /**
+     * Embeds a single text.
+     *
+     * @param text the text to embed
+     * @return the embedding vector
+     */
+    public float[] embed(String text) {
+        AdaptiveConcurrencyLimiter.Permit permit = acquire();
+        try {
+            Response<Embedding> response = embeddingModel.embed(TextSegment.from(text));
+            if (response == null || response.content() == null) {
+                throw new IllegalStateException("Embedding model returned null response");
+            }
+            succeeded(permit);
+            return response.content().vector();
+        } catch (RuntimeException e) {
+            dropped(permit);
+            throw e;
+        }
+    }
+
+    /**
+     * Embeds several texts in one embedAll call.
+     *
+     * @param texts the texts to embed
+     * @return vectors in the same order as the texts
+     */
+    public List<float[]> embedAll(List<String> texts) {
+        AdaptiveConcurrencyLimiter.Permit permit = acquire();
+        try {
+            List<TextSegment> segments = texts.stream().map(TextSegment::from).toList();
+            Response<List<Embedding>> response = embeddingModel.embedAll(segments);
+
+            if (response == null || response.content() == null) {
+                throw new IllegalStateException("Embedding model returned null response");
+            }
+            if (response.content().size() != texts.size()) {
+                throw new IllegalStateException(String.format(
+                    "Embedding model returned %d embeddings for %d texts", response.content().size(), texts.size()));
+            }
+            succeeded(permit);
+            return response.content().stream().map(Embedding::vector).toList();
+        } catch (RuntimeException e) {
+            dropped(permit);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the dimension of the vectors the embedding model produces.
+     * Models that do not know it in advance embed a probe text to find out.
+     */
+    public int dimension() {
+        return embeddingModel.dimension();
+    }
+
+    private AdaptiveConcurrencyLimiter.Permit acquire() {
+        if (limiter == null) {
+            return null;
+        }
+        try {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            if (permit == null) {
+                rejected.increment();
+                LOG.warnf("Embedding limiter at %d concurrent calls, rejecting after %s", limiter.limit(), maxWait);
+                throw new EmbeddingOverloadedException(
+                    "Embedding model is at its concurrency limit of " + limiter.limit());
+            }
+            return permit;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddingOverloadedException("Interrupted while waiting for the embedding limiter");
+        }
+    }
+
+    private static void succeeded(AdaptiveConcurrencyLimiter.Permit permit) {
+        if (permit != null) {
+            permit.success();
+        }
+    }
+
+    private static void dropped(AdaptiveConcurrencyLimiter.Permit permit) {
+        if (permit != null) {
+            permit.dropped();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.redhat.demos.evaluation.service;
+
+/**
+ * Thrown when an embedding call is refused because the model server is at its concurrency limit.
+ * Callers should not retry immediately, since retries only add to the overload.
+ */
+public class EmbeddingOverloadedException extends RuntimeException {
+
+    public EmbeddingOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -1,18 +1,22 @@
 package com.redhat.demos.evaluation.service;
 
-import dev.langchain4j.data.embedding.Embedding;
-import dev.langchain4j.data.segment.TextSegment;
-import dev.langchain4j.model.embedding.EmbeddingModel;
-import dev.langchain4j.model.output.Response;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.faulttolerance.Retry;
+import org.eclipse.microprofile.faulttolerance.exceptions.FaultToleranceException;
 import org.jboss.logging.Logger;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service for generating vector embeddings from text using Langchain4j.
+ * Results are cached by content hash in {@link EmbeddingCache}, and concurrent single-text
+ * requests that miss the cache are coalesced into embedAll calls by {@link EmbeddingBatcher}.
+ * Model calls go through {@link EmbeddingClient}. Its overload rejections, open circuit and full bulkhead
+ * are not retried, so retries do not add load to a server that is already saturated.
  */
 @ApplicationScoped
 public class EmbeddingService {
@@ -20,39 +24,95 @@ public class EmbeddingService {
     private static final Logger LOG = Logger.getLogger(EmbeddingService.class);
 
     @Inject
-    EmbeddingModel embeddingModel;
+    EmbeddingClient embeddingClient;
+
+    @Inject
+    EmbeddingBatcher embeddingBatcher;
+
+    @Inject
+    EmbeddingCache embeddingCache;
+
+    @ConfigProperty(name = "evaluation.embedding.batch.enabled", defaultValue = "true")
+    boolean batchingEnabled;
+
+    private volatile int dimension;
 
     /**
      * Generates a vector embedding for the given text.
-     * Implements retry logic with 2 attempts and exponential backoff.
+     * Implements retry logic with 2 attempts and exponential backoff for failed calls.
      *
      * @param text the text to embed
      * @return float array representing the embedding vector
      * @throws RuntimeException if embedding generation fails after retries
      */
-    @Retry(maxRetries = 2, delay = 1000, maxDuration = 10000, jitter = 200)
+    @Retry(maxRetries = 2, delay = 1000, maxDuration = 10000, jitter = 200,
+        abortOn = {EmbeddingOverloadedException.class, FaultToleranceException.class})
     public float[] generateEmbedding(String text) {
         String correlationId = UUID.randomUUID().toString();
 
         LOG.infof("[%s] Generating embedding for text of length %d", correlationId, text.length());
 
         try {
-            Response<Embedding> response = embeddingModel.embed(TextSegment.from(text));
-
-            if (response == null || response.content() == null) {
-                LOG.errorf("[%s] Embedding model returned null response", correlationId);
-                throw new RuntimeException("Embedding model returned null response");
-            }
-
-            float[] vector = response.content().vector();
+            float[] vector = embeddingCache.get(text,
+                t -> batchingEnabled ? awaitBatched(t) : embeddingClient.embed(t));
 
             LOG.infof("[%s] Successfully generated embedding with dimension %d", correlationId, vector.length);
 
             return vector;
 
+        } catch (EmbeddingOverloadedException | FaultToleranceException e) {
+            LOG.warnf("[%s] Embedding model unavailable: %s", correlationId, e.getMessage());
+            throw e;
         } catch (Exception e) {
             LOG.errorf(e, "[%s] Failed to generate embedding", correlationId);
             throw new RuntimeException("Failed to generate embedding: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Generates embeddings for several texts using batched embedAll calls.
+     *
+     * @param texts the texts to embed
+     * @return vectors in the same order as the texts
+     * @throws RuntimeException if embedding generation fails after retries
+     */
+    @Retry(maxRetries = 2, delay = 1000, maxDuration = 10000, jitter = 200,
+        abortOn = {EmbeddingOverloadedException.class, FaultToleranceException.class})
+    public List<float[]> generateEmbeddings(List<String> texts) {
+        String correlationId = UUID.randomUUID().toString();
+
+        LOG.infof("[%s] Generating embeddings for %d texts", correlationId, texts.size());
+
+        try {
+            return embeddingCache.getAll(texts, embeddingBatcher::embedAll);
+        } catch (EmbeddingOverloadedException | FaultToleranceException e) {
+            LOG.warnf("[%s] Embedding model unavailable: %s", correlationId, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            LOG.errorf(e, "[%s] Failed to generate embeddings", correlationId);
+            throw new RuntimeException("Failed to generate embeddings: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the dimension of the vectors the embedding model produces, asking the model only once.
+     *
+     * @return the embedding dimension
+     */
+    public int dimension() {
+        int known = dimension;
+        if (known == 0) {
+            known = embeddingClient.dimension();
+            dimension = known;
+        }
+        return known;
+    }
+
+    private float[] awaitBatched(String text) {
+        try {
+            return embeddingBatcher.submit(text).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
 }
@@ -0,0 +1,172 @@
+package com.redhat.demos.evaluation.service;
+
+import com.redhat.demos.evaluation.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Tells whether a thought has already been evaluated with the same content, so redelivered and replayed
+ * events can be skipped before they are embedded.
+ * Evaluated (thought id, content hash) pairs are kept in a {@link BloomFilter}: a miss means the pair is
+ * new and needs no database lookup, a hit is confirmed against the unique
+ * {@code (thought_id, content_hash)} index. A false positive therefore costs one indexed lookup and
+ * never skips a thought. The filter is warmed from recent evaluations at startup, so catching up after
+ * a restart skips what was already evaluated.
+ */
+@ApplicationScoped
+public class EvaluationDeduplicator {
+
+    private static final Logger LOG = Logger.getLogger(EvaluationDeduplicator.class);
+
+    private static final String EXISTS_SQL =
+        "SELECT 1 FROM thought_evaluations WHERE thought_id = ? AND content_hash = ? LIMIT 1";
+    private static final String RECENT_SQL =
+        "SELECT thought_id, content_hash FROM thought_evaluations WHERE content_hash IS NOT NULL AND evaluated_at >= ?";
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "evaluation.dedup.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "evaluation.dedup.expected-entries", defaultValue = "1000000")
+    long expectedEntries;
+
+    @ConfigProperty(name = "evaluation.dedup.false-positive-rate", defaultValue = "0.01")
+    double falsePositiveRate;
+
+    @ConfigProperty(name = "evaluation.dedup.warm-up-window", defaultValue = "7D")
+    Duration warmUpWindow;
+
+    private volatile BloomFilter filter;
+    private Counter newPairs;
+    private Counter duplicates;
+    private Counter falsePositives;
+
+    @PostConstruct
+    void init() {
+        filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        newPairs = lookups("new");
+        duplicates = lookups("duplicate");
+        falsePositives = lookups("false-positive");
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime since = LocalDateTime.now().minus(warmUpWindow);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(RECENT_SQL)) {
+            statement.setTimestamp(1, Timestamp.valueOf(since));
+            statement.setFetchSize(10_000);
+            int count = 0;
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    recordEvaluated(rows.getObject(1, UUID.class), rows.getString(2));
+                    count++;
+                }
+            }
+            LOG.infof("Warmed evaluation dedup filter with %d evaluations since %s (%d KiB)",
+                count, since, filter.sizeBytes() / 1024);
+        } catch (SQLException e) {
+            LOG.warnf(e, "Could not warm evaluation dedup filter, starting empty");
+        }
+    }
+
+    /**
+     * Returns the hex SHA-256 of the content, as stored in {@code thought_evaluations.content_hash}.
+     */
+    public static String contentHash(String content) {
+        return EmbeddingCache.hash(content);
+    }
+
+    /**
+     * Returns whether an evaluation of the thought with this content is already stored.
+     *
+     * @param thoughtId the thought id
+     * @param contentHash the hash of the thought content, from {@link #contentHash(String)}
+     */
+    public boolean isEvaluated(UUID thoughtId, String contentHash) {
+        if (!enabled) {
+            return false;
+        }
+        if (!filter.mightContain(high(thoughtId, contentHash), low(thoughtId, contentHash))) {
+            newPairs.increment();
+            return false;
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(EXISTS_SQL)) {
+            statement.setObject(1, thoughtId);
+            statement.setString(2, contentHash);
+            try (ResultSet rows = statement.executeQuery()) {
+                if (rows.next()) {
+                    duplicates.increment();
+                    return true;
+                }
+            }
+            falsePositives.increment();
+            return false;
+        } catch (SQLException e) {
+            // Evaluating again is safe: the unique index keeps a single row
+            LOG.warnf(e, "Could not check for an existing evaluation of thought %s", thoughtId);
+            return false;
+        }
+    }
+
+    /**
+     * Records that an evaluation of the thought with this content has been stored.
+     * Recording before the row commits is safe, because every filter hit is confirmed in the database.
+     */
+    public void recordEvaluated(UUID thoughtId, String contentHash) {
+        if (!enabled || thoughtId == null || contentHash == null) {
+            return;
+        }
+        BloomFilter current = filter;
+        if (current.added() >= expectedEntries) {
+            // Past its sizing the false-positive rate climbs. Pairs only in the old filter are forgotten: a
+            // redelivery of one is embedded and scored again, and the unique index only keeps it from adding a second row
+            current = new BloomFilter(expectedEntries, falsePositiveRate);
+            filter = current;
+            LOG.infof("Evaluation dedup filter reached %d entries, starting a new one", expectedEntries);
+        }
+        current.put(high(thoughtId, contentHash), low(thoughtId, contentHash));
+    }
+
+    private Counter lookups(String result) {
+        return Counter.builder("evaluation.dedup.lookups")
+            .description("Dedup checks of consumed thoughts by result; false-positive hits cost a database lookup")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    private static long high(UUID thoughtId, String contentHash) {
+        return thoughtId.getMostSignificantBits() ^ HexFormat.fromHexDigitsToLong(contentHash, 0, 16);
+    }
+
+    private static long low(UUID thoughtId, String contentHash) {
+        return thoughtId.getLeastSignificantBits() ^ HexFormat.fromHexDigitsToLong(contentHash, 16, 32);
+    }
+}
@@ -1,7 +1,9 @@
 package com.redhat.demos.evaluation.service;
 
+import com.redhat.demos.evaluation.dto.ThoughtContent;
 import com.redhat.demos.evaluation.model.ThoughtEvaluation;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -17,4 +19,24 @@ public interface EvaluationService {
      * @return ThoughtEvaluation entity with the evaluation result
      */
     ThoughtEvaluation evaluateThought(UUID thoughtId, String thoughtContent);
+
+    /**
+     * Evaluates a thought like {@link #evaluateThought(UUID, String)} but does not persist the result,
+     * so it can be written in bulk by {@link EvaluationWriter}.
+     *
+     * @param thoughtId the unique identifier of the thought
+     * @param thoughtContent the text content to evaluate
+     * @return unpersisted ThoughtEvaluation entity with the evaluation result
+     */
+    ThoughtEvaluation scoreThought(UUID thoughtId, String thoughtContent);
+
+    /**
+     * Evaluates several thoughts together: embeddings are generated with batched model calls,
+     * every thought is scored against the same negative vectors, and all results are persisted
+     * in a single transaction.
+     *
+     * @param thoughts the thoughts to evaluate
+     * @return ThoughtEvaluation entities in the same order as the thoughts
+     */
+    List<ThoughtEvaluation> evaluateThoughts(List<ThoughtContent> thoughts);
 }
@@ -2,27 +2,37 @@ package com.redhat.demos.evaluation.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.redhat.demos.evaluation.model.EvaluationVector;
+import com.redhat.demos.evaluation.dto.ThoughtContent;
+import com.redhat.demos.evaluation.index.MarginScore;
+import com.redhat.demos.evaluation.index.MarginScorer;
+import com.redhat.demos.evaluation.index.PackedVectors;
+import com.redhat.demos.evaluation.index.SimilarityMatch;
+import com.redhat.demos.evaluation.index.VectorIndex;
 import com.redhat.demos.evaluation.model.ThoughtEvaluation;
 import com.redhat.demos.evaluation.model.ThoughtStatus;
-import com.redhat.demos.evaluation.model.VectorType;
-import com.redhat.demos.evaluation.util.VectorDataParser;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import javax.sql.DataSource;
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 /**
  * Implementation of EvaluationService that orchestrates the evaluation process.
  * Generates embeddings, compares against negative vectors, and persists results.
+ * Each evaluation is traced and timed per stage through {@link EvaluationTelemetry}.
  */
 @ApplicationScoped
 public class EvaluationServiceImpl implements EvaluationService {
@@ -34,11 +44,38 @@ public class EvaluationServiceImpl implements EvaluationService {
     EmbeddingService embeddingService;
 
     @Inject
-    VectorSimilarityService vectorSimilarityService;
+    NegativeVectorIndex negativeVectorIndex;
+
+    @Inject
+    EvaluationTelemetry telemetry;
+
+    @Inject
+    EvaluationDeduplicator deduplicator;
+
+    @Inject
+    DataSource dataSource;
 
     @ConfigProperty(name = "evaluation.similarity.threshold", defaultValue = "0.85")
     double similarityThreshold;
 
+    /**
+     * "max" scores every negative vector and records the best match; "first-match" stops at the first
+     * vector above the threshold, so a rejected thought's score is that vector's, not necessarily the maximum.
+     */
+    @ConfigProperty(name = "evaluation.similarity.mode", defaultValue = "max")
+    String scoringMode;
+
+    /**
+     * Scores the positive vectors in the same pass as the negatives and only rejects a thought that is
+     * above the threshold and closer to its nearest negative than to its nearest positive by more than
+     * {@code evaluation.similarity.margin.min}. Uses an exact scan regardless of the configured index and mode.
+     */
+    @ConfigProperty(name = "evaluation.similarity.margin.enabled", defaultValue = "false")
+    boolean marginEnabled;
+
+    @ConfigProperty(name = "evaluation.similarity.margin.min", defaultValue = "0.0")
+    double minMargin;
+
     @Override
     @Transactional
     @Counted(value = "evaluation.thoughts.total", description = "Total number of thoughts evaluated")
@@ -48,79 +85,259 @@ public class EvaluationServiceImpl implements EvaluationService {
 
         LOG.infof("[%s] Starting evaluation for thought %s", correlationId, thoughtId);
 
-        try {
+        Span span = telemetry.startEvaluation("evaluateThought", correlationId, thoughtId);
+        try (Scope ignored = span.makeCurrent()) {
+            VectorIndex negativeIndex = loadNegativeIndex();
+
             // Generate embedding for the thought
-            float[] thoughtVector = embeddingService.generateEmbedding(thoughtContent);
+            float[] thoughtVector = embed(thoughtContent, negativeIndex);
 
-            // Retrieve all negative vectors from database
-            List<EvaluationVector> negativeVectors = EvaluationVector.list("vectorType", VectorType.NEGATIVE);
+            ThoughtEvaluation evaluation = score(thoughtId, thoughtVector, negativeIndex, correlationId);
+            evaluation.contentHash = EvaluationDeduplicator.contentHash(thoughtContent);
+            if (persist(List.of(evaluation), negativeIndex) == 0) {
+                LOG.infof("[%s] Evaluation completed and persisted with id %s", correlationId, evaluation.id);
+            } else {
+                LOG.infof("[%s] Thought %s was already evaluated with this content, returning evaluation %s",
+                    correlationId, thoughtId, evaluation.id);
+            }
 
-            LOG.infof("[%s] Retrieved %d negative vectors for comparison", correlationId, negativeVectors.size());
+            return evaluation;
 
-            // Calculate similarity with each negative vector
-            double maxSimilarity = 0.0;
-            String matchedLabel = null;
+        } catch (Exception e) {
+            telemetry.failed(span, e);
+            LOG.errorf(e, "[%s] Failed to evaluate thought %s", correlationId, thoughtId);
+            throw new RuntimeException("Evaluation failed: " + e.getMessage(), e);
+        } finally {
+            span.end();
+        }
+    }
 
-            for (EvaluationVector negativeVector : negativeVectors) {
-                float[] negativeEmbedding = VectorDataParser.parseVectorData(negativeVector.vectorData);
-                double similarity = vectorSimilarityService.calculateCosineSimilarity(thoughtVector, negativeEmbedding);
+    @Override
+    @Transactional
+    @Counted(value = "evaluation.thoughts.total", description = "Total number of thoughts evaluated")
+    @Timed(value = "evaluation.thoughts.duration", description = "Time taken to evaluate thoughts")
+    public ThoughtEvaluation scoreThought(UUID thoughtId, String thoughtContent) {
+        String correlationId = UUID.randomUUID().toString();
 
-                LOG.debugf("[%s] Similarity with '%s': %.4f", correlationId, negativeVector.label, similarity);
+        LOG.infof("[%s] Starting evaluation for thought %s", correlationId, thoughtId);
 
-                if (similarity > maxSimilarity) {
-                    maxSimilarity = similarity;
-                    matchedLabel = negativeVector.label;
-                }
-            }
+        Span span = telemetry.startEvaluation("scoreThought", correlationId, thoughtId);
+        try (Scope ignored = span.makeCurrent()) {
+            VectorIndex negativeIndex = loadNegativeIndex();
+            float[] thoughtVector = embed(thoughtContent, negativeIndex);
 
-            // Determine status based on threshold
-            ThoughtStatus status = maxSimilarity > similarityThreshold
-                ? ThoughtStatus.REJECTED
-                : ThoughtStatus.APPROVED;
+            ThoughtEvaluation evaluation = score(thoughtId, thoughtVector, negativeIndex, correlationId);
+            evaluation.contentHash = EvaluationDeduplicator.contentHash(thoughtContent);
+            return evaluation;
 
-            LOG.infof("[%s] Evaluation result: %s (max similarity: %.4f, threshold: %.2f)",
-                correlationId, status, maxSimilarity, similarityThreshold);
+        } catch (Exception e) {
+            telemetry.failed(span, e);
+            LOG.errorf(e, "[%s] Failed to evaluate thought %s", correlationId, thoughtId);
+            throw new RuntimeException("Evaluation failed: " + e.getMessage(), e);
+        } finally {
+            span.end();
+        }
+    }
 
-            // Create and persist evaluation
-            ThoughtEvaluation evaluation = createEvaluation(thoughtId, status, maxSimilarity, matchedLabel, correlationId);
+    @Override
+    @Transactional
+    @Counted(value = "evaluation.batches.total", description = "Total number of thought batches evaluated")
+    @Timed(value = "evaluation.batches.duration", description = "Time taken to evaluate thought batches")
+    public List<ThoughtEvaluation> evaluateThoughts(List<ThoughtContent> thoughts) {
+        String correlationId = UUID.randomUUID().toString();
 
-            LOG.infof("[%s] Evaluation completed and persisted with id %s", correlationId, evaluation.id);
+        LOG.infof("[%s] Starting batch evaluation of %d thoughts", correlationId, thoughts.size());
 
-            return evaluation;
+        Span span = telemetry.startEvaluation("evaluateThoughts", correlationId, null);
+        try (Scope ignored = span.makeCurrent()) {
+            // Score every thought against the same index snapshot and persist in this transaction
+            VectorIndex negativeIndex = loadNegativeIndex();
+
+            // Generate all embeddings with batched model calls
+            List<float[]> thoughtVectors;
+            try (EvaluationTelemetry.Stage stage = telemetry.stage(EvaluationTelemetry.STAGE_EMBEDDING, negativeIndex.vectors().size())) {
+                thoughtVectors = embeddingService.generateEmbeddings(
+                    thoughts.stream().map(ThoughtContent::content).toList());
+            }
+
+            List<ThoughtEvaluation> evaluations = new ArrayList<>(thoughts.size());
+            for (int i = 0; i < thoughts.size(); i++) {
+                ThoughtEvaluation evaluation = score(thoughts.get(i).thoughtId(), thoughtVectors.get(i), negativeIndex, correlationId);
+                evaluation.contentHash = EvaluationDeduplicator.contentHash(thoughts.get(i).content());
+                evaluations.add(evaluation);
+            }
+            int skipped = persist(evaluations, negativeIndex);
+
+            LOG.infof("[%s] Batch evaluation of %d thoughts completed, %d persisted and %d already evaluated with the same content",
+                correlationId, evaluations.size(), evaluations.size() - skipped, skipped);
+
+            return evaluations;
 
         } catch (Exception e) {
-            LOG.errorf(e, "[%s] Failed to evaluate thought %s", correlationId, thoughtId);
-            throw new RuntimeException("Evaluation failed: " + e.getMessage(), e);
+            telemetry.failed(span, e);
+            LOG.errorf(e, "[%s] Failed to evaluate batch of %d thoughts", correlationId, thoughts.size());
+            throw new RuntimeException("Batch evaluation failed: " + e.getMessage(), e);
+        } finally {
+            span.end();
         }
     }
 
     /**
-     * Creates and persists a ThoughtEvaluation entity.
+     * Returns the negative vector index, which reloads and decodes the vectors first if they changed.
+     */
+    private VectorIndex loadNegativeIndex() {
+        try (EvaluationTelemetry.Stage stage = telemetry.stage(EvaluationTelemetry.STAGE_VECTOR_LOAD, -1)) {
+            VectorIndex negativeIndex = negativeVectorIndex.index();
+            stage.negativeSetSize(negativeIndex.vectors().size());
+            return negativeIndex;
+        }
+    }
+
+    private float[] embed(String thoughtContent, VectorIndex negativeIndex) {
+        try (EvaluationTelemetry.Stage stage = telemetry.stage(EvaluationTelemetry.STAGE_EMBEDDING, negativeIndex.vectors().size())) {
+            return embeddingService.generateEmbedding(thoughtContent);
+        }
+    }
+
+    /**
+     * Inserts evaluations with the writer's statement, skipping any whose thought was already evaluated
+     * with the same content, as the writer does. Skipped evaluations are replaced by the stored row.
+     * The connection is enlisted in the current transaction, so the rows commit or roll back with it.
+     *
+     * @return the number of evaluations that were already stored
+     */
+    private int persist(List<ThoughtEvaluation> evaluations, VectorIndex negativeIndex) {
+        List<ThoughtEvaluation> skipped;
+        try (EvaluationTelemetry.Stage stage = telemetry.stage(EvaluationTelemetry.STAGE_PERSISTENCE, negativeIndex.vectors().size());
+             Connection connection = dataSource.getConnection()) {
+            skipped = EvaluationWriter.insertAll(connection, evaluations);
+            EvaluationWriter.loadExisting(connection, skipped);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to persist evaluations: " + e.getMessage(), e);
+        }
+        evaluations.forEach(evaluation -> deduplicator.recordEvaluated(evaluation.thoughtId, evaluation.contentHash));
+        return skipped.size();
+    }
+
+    /**
+     * Scores a thought embedding against the negative vector index without persisting the result.
+     */
+    private ThoughtEvaluation score(UUID thoughtId, float[] thoughtVector,
+                                    VectorIndex negativeIndex, String correlationId) {
+        try (EvaluationTelemetry.Stage stage = telemetry.stage(EvaluationTelemetry.STAGE_SCORING, negativeIndex.vectors().size())) {
+            return marginEnabled
+                ? scoreWithMargin(thoughtId, thoughtVector, negativeVectorIndex.marginScorer(), correlationId)
+                : scoreAgainstNegatives(thoughtId, thoughtVector, negativeIndex, correlationId);
+        }
+    }
+
+    /**
+     * Scores a thought embedding against the negative vectors only, in the configured mode.
+     */
+    private ThoughtEvaluation scoreAgainstNegatives(UUID thoughtId, float[] thoughtVector,
+                                                    VectorIndex negativeIndex, String correlationId) {
+        PackedVectors negativeVectors = negativeIndex.vectors();
+
+        LOG.debugf("[%s] Comparing thought %s against %d negative vectors using %s index",
+            correlationId, thoughtId, negativeVectors.size(), negativeIndex.name());
+
+        SimilarityMatch bestMatch = isFirstMatchMode()
+            ? negativeIndex.findFirstAbove(thoughtVector, similarityThreshold)
+            : negativeIndex.findMostSimilar(thoughtVector);
+        double maxSimilarity = Math.max(0.0, bestMatch.score());
+        String matchedLabel = bestMatch.score() > 0.0 ? negativeVectors.label(bestMatch.row()) : null;
+
+        // Determine status based on threshold
+        ThoughtStatus status = maxSimilarity > similarityThreshold
+            ? ThoughtStatus.REJECTED
+            : ThoughtStatus.APPROVED;
+
+        LOG.infof("[%s] Evaluation result for thought %s: %s (max similarity: %.4f, threshold: %.2f)",
+            correlationId, thoughtId, status, maxSimilarity, similarityThreshold);
+
+        return createEvaluation(thoughtId, status, maxSimilarity, matchedLabel, correlationId);
+    }
+
+    /**
+     * Scores a thought embedding against the negative and positive vectors in one fused pass.
+     */
+    private ThoughtEvaluation scoreWithMargin(UUID thoughtId, float[] thoughtVector,
+                                              MarginScorer marginScorer, String correlationId) {
+        LOG.debugf("[%s] Comparing thought %s against %d negative and %d positive vectors",
+            correlationId, thoughtId, marginScorer.negatives().size(), marginScorer.positives().size());
+
+        MarginScore result = marginScorer.score(thoughtVector);
+        double maxSimilarity = Math.max(0.0, result.negative().score());
+        double maxPositiveSimilarity = Math.max(0.0, result.positive().score());
+        double margin = maxSimilarity - maxPositiveSimilarity;
+
+        ThoughtStatus status = maxSimilarity > similarityThreshold && margin > minMargin
+            ? ThoughtStatus.REJECTED
+            : ThoughtStatus.APPROVED;
+
+        LOG.infof("[%s] Evaluation result for thought %s: %s (max similarity: %.4f, max positive: %.4f, margin: %.4f, threshold: %.2f)",
+            correlationId, thoughtId, status, maxSimilarity, maxPositiveSimilarity, margin, similarityThreshold);
+
+        String matchedLabel = result.negative().score() > 0.0
+            ? marginScorer.negatives().label(result.negative().row())
+            : null;
+        ObjectNode metadata = createMetadata(matchedLabel, correlationId);
+        metadata.put("maxPositiveSimilarity", maxPositiveSimilarity);
+        metadata.put("margin", margin);
+        metadata.put("minMargin", minMargin);
+        if (result.positive().score() > 0.0) {
+            metadata.put("matchedPositiveLabel", marginScorer.positives().label(result.positive().row()));
+        }
+
+        return createEvaluation(thoughtId, status, maxSimilarity, metadata);
+    }
+
+    private boolean isFirstMatchMode() {
+        return "first-match".equalsIgnoreCase(scoringMode);
+    }
+
+    private String scoringModeName() {
+        if (marginEnabled) {
+            return "margin";
+        }
+        return isFirstMatchMode() ? "first-match" : "max";
+    }
+
+    /**
+     * Creates an unpersisted ThoughtEvaluation entity.
      */
     private ThoughtEvaluation createEvaluation(UUID thoughtId, ThoughtStatus status,
                                                double similarityScore, String matchedLabel,
                                                String correlationId) {
+        return createEvaluation(thoughtId, status, similarityScore, createMetadata(matchedLabel, correlationId));
+    }
+
+    private ThoughtEvaluation createEvaluation(UUID thoughtId, ThoughtStatus status,
+                                               double similarityScore, ObjectNode metadata) {
         ThoughtEvaluation evaluation = new ThoughtEvaluation();
         evaluation.thoughtId = thoughtId;
         evaluation.status = status;
         evaluation.similarityScore = BigDecimal.valueOf(similarityScore);
+        evaluation.metadata = metadata.toString();
+
+        return evaluation;
+    }
 
-        // Create metadata JSON
+    /**
+     * Creates the metadata JSON common to every scoring mode.
+     */
+    private ObjectNode createMetadata(String matchedLabel, String correlationId) {
         ObjectNode metadata = MAPPER.createObjectNode();
         metadata.put("evaluationTimestamp", LocalDateTime.now().toString());
         metadata.put("correlationId", correlationId);
         metadata.put("threshold", similarityThreshold);
         metadata.put("modelName", "text-embedding-ada-002");
+        metadata.put("scoringMode", scoringModeName());
 
         if (matchedLabel != null) {
             metadata.put("matchedNegativeLabel", matchedLabel);
         }
 
-        evaluation.metadata = metadata.toString();
-
-        // Persist the evaluation
-        evaluation.persist();
-
-        return evaluation;
+        return metadata;
     }
 }
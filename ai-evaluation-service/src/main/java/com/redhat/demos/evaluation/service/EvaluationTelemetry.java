@@ -0,0 +1,147 @@
+package com.redhat.demos.evaluation.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage latency of thought evaluations.
+ * Each evaluation runs in an OpenTelemetry span carrying its correlation id, with a child span per stage;
+ * each stage is also recorded in the {@code evaluation.stage.duration} timer, with percentiles and histogram
+ * buckets, tagged with the stage, the embedding model and the order of magnitude of the negative set size.
+ */
+@ApplicationScoped
+public class EvaluationTelemetry {
+
+    public static final String STAGE_VECTOR_LOAD = "vector-load";
+    public static final String STAGE_EMBEDDING = "embedding";
+    public static final String STAGE_SCORING = "scoring";
+    public static final String STAGE_PERSISTENCE = "persistence";
+
+    static final String STAGE_TIMER = "evaluation.stage.duration";
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Tracer tracer;
+
+    @ConfigProperty(name = "quarkus.langchain4j.openai.embedding-model.model-name", defaultValue = "text-embedding-ada-002")
+    String modelName;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Starts the span of one evaluation. The caller makes it current while the evaluation runs and ends it.
+     *
+     * @param operation the span name
+     * @param correlationId the correlation id logged with the evaluation
+     * @param thoughtId the thought being evaluated, or null for a batch
+     * @return the started span
+     */
+    public Span startEvaluation(String operation, String correlationId, UUID thoughtId) {
+        SpanBuilder builder = tracer.spanBuilder(operation)
+            .setAttribute("evaluation.correlation_id", correlationId)
+            .setAttribute("evaluation.model", modelName);
+        if (thoughtId != null) {
+            builder.setAttribute("evaluation.thought_id", thoughtId.toString());
+        }
+        return builder.startSpan();
+    }
+
+    /**
+     * Marks an evaluation span as failed.
+     */
+    public void failed(Span span, Throwable error) {
+        span.recordException(error);
+        span.setStatus(StatusCode.ERROR, error.getMessage());
+    }
+
+    /**
+     * Starts timing a stage of the current evaluation.
+     *
+     * @param stage one of the {@code STAGE_*} names
+     * @param negativeSetSize the number of negative vectors scored against, or -1 if not known yet
+     * @return the running stage, recorded when closed
+     */
+    public Stage stage(String stage, int negativeSetSize) {
+        return new Stage(stage, negativeSetSize);
+    }
+
+    private Timer timer(String stage, String sizeBucket) {
+        return timers.computeIfAbsent(stage + '|' + sizeBucket, key -> Timer.builder(STAGE_TIMER)
+            .description("Time spent in each stage of a thought evaluation")
+            .tag("stage", stage)
+            .tag("model", modelName)
+            .tag("negativeSetSize", sizeBucket)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(registry));
+    }
+
+    /**
+     * Buckets a set size by order of magnitude, such as "100-999", to keep the tag's cardinality low.
+     */
+    static String sizeBucket(int size) {
+        if (size < 0) {
+            return "unknown";
+        }
+        if (size == 0) {
+            return "0";
+        }
+        long lower = 1;
+        while (lower * 10 <= size) {
+            lower *= 10;
+        }
+        return lower + "-" + (lower * 10 - 1);
+    }
+
+    /**
+     * A running evaluation stage with its child span.
+     */
+    public final class Stage implements AutoCloseable {
+
+        private final String name;
+        private final Span span;
+        private final Scope scope;
+        private final long start = System.nanoTime();
+        private int negativeSetSize;
+
+        private Stage(String name, int negativeSetSize) {
+            this.name = name;
+            this.negativeSetSize = negativeSetSize;
+            this.span = tracer.spanBuilder(name).startSpan();
+            this.scope = span.makeCurrent();
+        }
+
+        /**
+         * Sets the negative set size once the stage has determined it.
+         */
+        public void negativeSetSize(int negativeSetSize) {
+            this.negativeSetSize = negativeSetSize;
+        }
+
+        @Override
+        public void close() {
+            long elapsed = System.nanoTime() - start;
+            timer(name, sizeBucket(negativeSetSize)).record(elapsed, TimeUnit.NANOSECONDS);
+            if (negativeSetSize >= 0) {
+                span.setAttribute("evaluation.negative_set_size", negativeSetSize);
+            }
+            scope.close();
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.redhat.demos.evaluation.service;
+
+import com.redhat.demos.evaluation.model.ThoughtEvaluation;
+import com.redhat.demos.evaluation.model.ThoughtStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind stage for evaluation results.
+ * Buffers evaluations and inserts them with one JDBC batch and one commit per flush, flushing when
+ * {@code batch-size} rows are waiting or {@code flush-interval} has elapsed since the first one.
+ * Each caller's future completes only after its row is committed, so a Kafka record acknowledged
+ * on that future never has its offset committed ahead of its evaluation. A flush that fails because the
+ * database is unavailable is retried with exponential backoff until it succeeds or the writer shuts down,
+ * holding back later batches meanwhile, so an outage stalls consumption instead of dropping evaluations;
+ * futures still unwritten at shutdown fail with an error {@link #isUnwritten} recognises. Errors in the rows
+ * themselves are not retried; the batch is written row by row so only the bad row fails.
+ * A row whose thought was already evaluated with the same content hash is skipped rather than failing the batch;
+ * evaluations persisted directly by {@link EvaluationServiceImpl} go through the same insert, and are then
+ * replaced by the stored row so the caller never sees an id that no row has.
+ * This is the persistence stage of evaluations run through the pipeline, so its latency is recorded here
+ * rather than in {@link EvaluationTelemetry}.
+ */
+@ApplicationScoped
+public class EvaluationWriter {
+
+    private static final Logger LOG = Logger.getLogger(EvaluationWriter.class);
+
+    private static final String INSERT_SQL =
+        "INSERT INTO thought_evaluations (id, thought_id, status, similarity_score, evaluated_at, metadata, content_hash) "
+            + "VALUES (?, ?, ?, ?, ?, ?::jsonb, ?) ON CONFLICT (thought_id, content_hash) DO NOTHING";
+    private static final String EXISTING_SQL =
+        "SELECT id, status, similarity_score, evaluated_at, metadata FROM thought_evaluations WHERE thought_id = ? AND content_hash = ?";
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    EvaluationDeduplicator deduplicator;
+
+    @ConfigProperty(name = "evaluation.writer.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "evaluation.writer.batch-size", defaultValue = "100")
+    int batchSize;
+
+    @ConfigProperty(name = "evaluation.writer.flush-interval", defaultValue = "50ms")
+    Duration flushInterval;
+
+    @ConfigProperty(name = "evaluation.writer.retry-backoff", defaultValue = "100ms")
+    Duration retryBackoff;
+
+    @ConfigProperty(name = "evaluation.writer.max-retry-backoff", defaultValue = "10s")
+    Duration maxRetryBackoff;
+
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private Thread flusher;
+    private volatile boolean running;
+    private Timer flushTimer;
+    private Timer writeLatency;
+
+    @PostConstruct
+    void start() {
+        flushTimer = Timer.builder("evaluation.writer.flush.duration")
+            .description("Time to insert and commit one batch of evaluations")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(registry);
+        writeLatency = Timer.builder("evaluation.writer.write.latency")
+            .description("Time from queueing an evaluation to committing its row")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(registry);
+
+        running = true;
+        flusher = Thread.ofPlatform().daemon().name("evaluation-writer").start(this::flushLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Flush whatever arrived before shutdown so acknowledged work is not lost
+        List<PendingWrite> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    /**
+     * Returns whether evaluations should be written through this writer instead of persisted individually.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues an evaluation for the next flush.
+     * Assigns the id and evaluation time if they are not set yet.
+     *
+     * @param evaluation the unpersisted evaluation to write
+     * @return a future completed once the row is committed, or with the write failure
+     */
+    public CompletableFuture<Void> write(ThoughtEvaluation evaluation) {
+        assignDefaults(evaluation);
+
+        PendingWrite pending = new PendingWrite(evaluation, new CompletableFuture<>(), System.nanoTime());
+        queue.add(pending);
+        return pending.written;
+    }
+
+    /**
+     * Returns the number of evaluations waiting to be flushed.
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    private void flushLoop() {
+        while (running) {
+            List<PendingWrite> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                flush(batch);
+            } catch (RuntimeException e) {
+                // Keep the flusher alive: without it every later write would wait forever
+                LOG.errorf(e, "Failed to flush %d evaluations", batch.size());
+                batch.forEach(pending -> pending.written.completeExceptionally(e));
+            }
+        }
+    }
+
+    /**
+     * Blocks for the first evaluation, then collects more until the batch is full or the flush interval has elapsed.
+     */
+    private List<PendingWrite> nextBatch() throws InterruptedException {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        batch.add(queue.take());
+
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                queue.drainTo(batch, batchSize - batch.size());
+                break;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        try {
+            Timer.Sample sample = Timer.start(registry);
+            int skipped = insertWithRetries(batch);
+            sample.stop(flushTimer);
+            long committedAt = System.nanoTime();
+            batch.forEach(pending -> {
+                writeLatency.record(committedAt - pending.queuedAt, TimeUnit.NANOSECONDS);
+                deduplicator.recordEvaluated(pending.evaluation.thoughtId, pending.evaluation.contentHash);
+                pending.written.complete(null);
+            });
+            LOG.debugf("Flushed %d evaluations, %d already evaluated with the same content", batch.size(), skipped);
+        } catch (SQLException e) {
+            if (batch.size() == 1 || !isRowError(e)) {
+                LOG.errorf(e, "Failed to write %d evaluations", batch.size());
+                batch.forEach(pending -> pending.written.completeExceptionally(e));
+                return;
+            }
+            // Retry row by row so one bad row does not fail the rest of the batch
+            LOG.warnf(e, "Batch write of %d evaluations failed, retrying individually", batch.size());
+            batch.forEach(pending -> flush(List.of(pending)));
+        }
+    }
+
+    /**
+     * Inserts a batch, retrying failures other than row errors with exponential backoff until shutdown.
+     *
+     * @return the number of rows skipped as already evaluated
+     */
+    private int insertWithRetries(List<PendingWrite> batch) throws SQLException {
+        long backoffNanos = retryBackoff.toNanos();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return insert(batch);
+            } catch (SQLException e) {
+                if (isRowError(e) || !running) {
+                    throw e;
+                }
+                LOG.warnf("Write of %d evaluations failed (%s), retry %d in %d ms",
+                    batch.size(), e.getMessage(), attempt, TimeUnit.NANOSECONDS.toMillis(backoffNanos));
+                try {
+                    TimeUnit.NANOSECONDS.sleep(backoffNanos);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                backoffNanos = Math.min(backoffNanos * 2, maxRetryBackoff.toNanos());
+            }
+        }
+    }
+
+    /**
+     * Returns whether a write failed because of the rows themselves (data, constraint or statement
+     * errors), which retrying cannot fix, rather than because the database was unavailable.
+     */
+    static boolean isRowError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23") || state.startsWith("42"));
+    }
+
+    /**
+     * Returns whether a write future failed without its row being written because the database stayed
+     * unavailable until shutdown, so the evaluation must be redelivered rather than acknowledged.
+     */
+    public static boolean isUnwritten(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof SQLException e && !isRowError(e);
+    }
+
+    private int insert(List<PendingWrite> batch) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                int skipped = insertAll(connection, batch.stream().map(PendingWrite::evaluation).toList()).size();
+                connection.commit();
+                return skipped;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Inserts evaluations in one JDBC batch, skipping any whose thought was already evaluated with the
+     * same content hash. Does not commit, so it also runs on a connection enlisted in a JTA transaction.
+     * Assigns the id and evaluation time of each evaluation if they are not set yet.
+     *
+     * @param connection the connection to insert on
+     * @param evaluations the unpersisted evaluations to insert
+     * @return the evaluations skipped because their thought was already evaluated with the same content
+     * @throws SQLException if the batch fails
+     */
+    static List<ThoughtEvaluation> insertAll(Connection connection, List<ThoughtEvaluation> evaluations) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, new String[]{"id"})) {
+            for (ThoughtEvaluation evaluation : evaluations) {
+                assignDefaults(evaluation);
+                statement.setObject(1, evaluation.id);
+                statement.setObject(2, evaluation.thoughtId);
+                statement.setString(3, evaluation.status.name());
+                statement.setBigDecimal(4, evaluation.similarityScore);
+                statement.setTimestamp(5, Timestamp.valueOf(evaluation.evaluatedAt));
+                statement.setString(6, evaluation.metadata);
+                statement.setString(7, evaluation.contentHash);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+
+            // Update counts are not reported for rewritten batches, but the ids are assigned here,
+            // so the ids returned tell exactly which rows were inserted
+            Set<UUID> inserted = new HashSet<>();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                while (keys != null && keys.next()) {
+                    inserted.add(keys.getObject(1, UUID.class));
+                }
+            }
+            return evaluations.stream().filter(evaluation -> !inserted.contains(evaluation.id)).toList();
+        }
+    }
+
+    /**
+     * Replaces each evaluation skipped by {@link #insertAll} with the row already stored for its thought
+     * and content hash.
+     *
+     * @param connection the connection the evaluations were inserted on
+     * @param skipped the evaluations returned by {@link #insertAll}
+     * @throws SQLException if a stored row cannot be read
+     */
+    static void loadExisting(Connection connection, List<ThoughtEvaluation> skipped) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(EXISTING_SQL)) {
+            for (ThoughtEvaluation evaluation : skipped) {
+                statement.setObject(1, evaluation.thoughtId);
+                statement.setString(2, evaluation.contentHash);
+                try (ResultSet row = statement.executeQuery()) {
+                    if (!row.next()) {
+                        throw new SQLException("Evaluation of thought " + evaluation.thoughtId
+                            + " was skipped as already evaluated, but no stored evaluation was found");
+                    }
+                    evaluation.id = row.getObject("id", UUID.class);
+                    evaluation.status = ThoughtStatus.valueOf(row.getString("status"));
+                    evaluation.similarityScore = row.getBigDecimal("similarity_score");
+                    evaluation.evaluatedAt = row.getTimestamp("evaluated_at").toLocalDateTime();
+                    evaluation.metadata = row.getString("metadata");
+                }
+            }
+        }
+    }
+
+    private static void assignDefaults(ThoughtEvaluation evaluation) {
+        if (evaluation.id == null) {
+            evaluation.id = UUID.randomUUID();
+        }
+        if (evaluation.evaluatedAt == null) {
+            evaluation.evaluatedAt = LocalDateTime.now();
+        }
+    }
+
+    private record PendingWrite(ThoughtEvaluation evaluation, CompletableFuture<Void> written, long queuedAt) {
+    }
+}
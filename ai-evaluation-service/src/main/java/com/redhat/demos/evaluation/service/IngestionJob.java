@@ -0,0 +1,105 @@
+package com.redhat.demos.evaluation.service;
+
+import com.redhat.demos.evaluation.dto.IngestionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mutable progress of one vector ingestion, updated by the ingestion thread and read by status requests.
+ */
+public class IngestionJob {
+
+    enum State {
+        PENDING,
+        RUNNING,
+        SWAPPING,
+        COMPLETED,
+        FAILED
+    }
+
+    private static final int MAX_ERRORS = 10;
+
+    private final UUID id;
+    private final boolean replace;
+    private final AtomicLong linesRead = new AtomicLong();
+    private final AtomicLong embedded = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+    private volatile State state = State.PENDING;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    IngestionJob(UUID id, boolean replace) {
+        this.id = id;
+        this.replace = replace;
+    }
+
+    public UUID id() {
+        return id;
+    }
+
+    public boolean replace() {
+        return replace;
+    }
+
+    void running() {
+        startedAt = LocalDateTime.now();
+        state = State.RUNNING;
+    }
+
+    void lineRead() {
+        linesRead.incrementAndGet();
+    }
+
+    void embedded(int count) {
+        embedded.addAndGet(count);
+    }
+
+    void written(long count) {
+        written.addAndGet(count);
+    }
+
+    void lineFailed(long lineNumber, String message) {
+        failed.incrementAndGet();
+        addError("line " + lineNumber + ": " + message);
+    }
+
+    void swapping() {
+        state = State.SWAPPING;
+    }
+
+    void completed() {
+        finishedAt = LocalDateTime.now();
+        state = State.COMPLETED;
+    }
+
+    void failed(String message) {
+        synchronized (errors) {
+            errors.add(message);
+        }
+        finishedAt = LocalDateTime.now();
+        state = State.FAILED;
+    }
+
+    public IngestionStatus status() {
+        List<String> errorsCopy;
+        synchronized (errors) {
+            errorsCopy = List.copyOf(errors);
+        }
+        return new IngestionStatus(id, state.name(), replace, linesRead.get(), embedded.get(), written.get(),
+            failed.get(), errorsCopy, startedAt, finishedAt);
+    }
+
+    private void addError(String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(message);
+            }
+        }
+    }
+}
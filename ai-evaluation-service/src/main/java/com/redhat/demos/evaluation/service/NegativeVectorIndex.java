@@ -0,0 +1,427 @@
+package com.redhat.demos.evaluation.service;
+
+import com.redhat.demos.evaluation.index.DecisionAgreement;
+import com.redhat.demos.evaluation.index.ExactVectorIndex;
+import com.redhat.demos.evaluation.index.HnswParameters;
+import com.redhat.demos.evaluation.index.HnswVectorIndex;
+import com.redhat.demos.evaluation.index.MarginScorer;
+import com.redhat.demos.evaluation.index.PackedVectors;
+import com.redhat.demos.evaluation.index.QuantizedVectorIndex;
+import com.redhat.demos.evaluation.index.VectorIndex;
+import com.redhat.demos.evaluation.index.VectorKernels;
+import com.redhat.demos.evaluation.index.VectorSnapshot;
+import com.redhat.demos.evaluation.model.EvaluationVector;
+import com.redhat.demos.evaluation.model.VectorType;
+import com.redhat.demos.evaluation.util.VectorCodec;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.Transactional;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resident, pre-parsed copy of the NEGATIVE rows of evaluation_vectors.
+ * Loaded at startup and reloaded lazily after any change to EvaluationVector entities in this JVM,
+ * so evaluations do not query or parse vector data on the hot path. Writes that bypass the entities
+ * (other replicas, plain SQL, COPY) are picked up by polling a digest of the rows, computed in the database.
+ * Searches go through the configured {@link VectorIndex}: an exact scan, optionally over a quantized copy
+ * with exact re-ranking, or HNSW for large sets. Quantization requires the snapshot: the quantized codes
+ * are the only copy on heap and candidates are re-ranked from the mapped rows.
+ * When margin scoring is enabled the POSITIVE rows are loaded too and scored with the negatives in a fused scan.
+ * That scan reads the float rows directly, so margin mode builds neither HNSW nor a quantized copy, which would
+ * only sit on the heap unused.
+ */
+@ApplicationScoped
+public class NegativeVectorIndex {
+
+    private static final Logger LOG = Logger.getLogger(NegativeVectorIndex.class);
+    private static final String INVALIDATION_KEY = NegativeVectorIndex.class.getName() + ".invalidation";
+    private static final String SOURCE_DIGEST_SQL =
+        "SELECT md5(string_agg(id::text || ':' || vector_encoding || ':' || md5(vector_bytes) || ':' || label, ',' ORDER BY id)) "
+            + "FROM evaluation_vectors WHERE vector_type = ?";
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @Inject
+    VectorSimilarityService vectorSimilarityService;
+
+    @ConfigProperty(name = "evaluation.index.type", defaultValue = "exact")
+    String indexType;
+
+    @ConfigProperty(name = "evaluation.index.quantization.type", defaultValue = "none")
+    String quantizationType;
+
+    @ConfigProperty(name = "evaluation.index.quantization.rerank", defaultValue = "32")
+    int quantizationRerank;
+
+    @ConfigProperty(name = "evaluation.index.hnsw.min-vectors", defaultValue = "1000")
+    int hnswMinVectors;
+
+    @ConfigProperty(name = "evaluation.index.hnsw.m", defaultValue = "16")
+    int hnswM;
+
+    @ConfigProperty(name = "evaluation.index.hnsw.ef-construction", defaultValue = "200")
+    int hnswEfConstruction;
+
+    @ConfigProperty(name = "evaluation.index.hnsw.ef-search", defaultValue = "64")
+    int hnswEfSearch;
+
+    /**
+     * Optional snapshot file. When set, the negative vectors are mapped from it off-heap, and it is
+     * rewritten after each database load. A snapshot is only used while a digest of the NEGATIVE rows'
+     * ids, labels and vector bytes matches the one it was written from.
+     */
+    @ConfigProperty(name = "evaluation.index.snapshot.path")
+    Optional<Path> snapshotPath;
+
+    @ConfigProperty(name = "evaluation.similarity.margin.enabled", defaultValue = "false")
+    boolean marginEnabled;
+
+    private final Object loadLock = new Object();
+    private volatile VectorIndex index = new ExactVectorIndex(PackedVectors.empty(), VectorKernels.scalar());
+    private volatile MarginScorer marginScorer;
+    private volatile boolean stale = true;
+    private volatile SourceVersion loadedVersion;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Digests of the rows an index was built from; positives are only tracked with margin scoring.
+     */
+    private record SourceVersion(long negatives, long positives) {
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        try {
+            refresh();
+        } catch (Exception e) {
+            LOG.errorf(e, "Failed to load negative vectors at startup, will retry on first evaluation");
+        }
+    }
+
+    /**
+     * Returns the current search index, reloading it first if it is stale.
+     * Must be called with an active transaction or request context.
+     *
+     * @return the index over the negative vectors
+     */
+    public VectorIndex index() {
+        if (stale) {
+            reload();
+        }
+        return index;
+    }
+
+    /**
+     * Returns the current negative vectors, reloading them first if they are stale.
+     *
+     * @return the packed negative vectors
+     */
+    public PackedVectors vectors() {
+        return index().vectors();
+    }
+
+    /**
+     * Returns the dimension of the negative vectors currently loaded, without reloading them,
+     * or 0 if none are loaded.
+     */
+    public int loadedDimension() {
+        PackedVectors current = index.vectors();
+        return current.isEmpty() ? 0 : current.dimension();
+    }
+
+    /**
+     * Returns the fused negative and positive scorer, reloading it first if it is stale.
+     * Must be called with an active transaction or request context.
+     *
+     * @throws IllegalStateException if margin scoring is disabled
+     */
+    public MarginScorer marginScorer() {
+        if (!marginEnabled) {
+            throw new IllegalStateException("Margin scoring is disabled");
+        }
+        if (stale) {
+            reload();
+        }
+        return marginScorer;
+    }
+
+    /**
+     * Returns an exact linear scan over the same vectors as the current index,
+     * for verifying approximate results.
+     */
+    public VectorIndex exactIndex() {
+        return new ExactVectorIndex(vectors(), vectorSimilarityService.kernel());
+    }
+
+    /**
+     * Compares the decisions of the current index with an exact scan over the same vectors.
+     *
+     * @param queries the query vectors
+     * @param threshold the similarity above which a thought is rejected
+     * @param boundaryMargin the distance from the threshold within which a query counts as a boundary query
+     * @return the agreement report
+     */
+    public DecisionAgreement agreement(List<float[]> queries, double threshold, double boundaryMargin) {
+        VectorIndex current = index();
+        VectorIndex exact = new ExactVectorIndex(current.vectors(), vectorSimilarityService.kernel());
+        return DecisionAgreement.measure(current, exact, queries, threshold, boundaryMargin);
+    }
+
+    /**
+     * Reloads the negative vectors from the database and swaps the new index in.
+     * Evaluations keep using the previous index while the new one is built, unless it is already stale.
+     */
+    @Transactional
+    @ActivateRequestContext
+    public void refresh() {
+        synchronized (loadLock) {
+            long seen = invalidations.get();
+            loadIndex();
+            // Keep the index stale if it was invalidated while loading
+            if (invalidations.get() == seen) {
+                stale = false;
+            }
+        }
+    }
+
+    /**
+     * Reloads the index when the digest of the rows differs from the one it was built from,
+     * or when it is stale. Evaluations keep using the previous index while the new one is built.
+     */
+    @Scheduled(every = "${evaluation.index.refresh-interval:10s}",
+        concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    @Transactional
+    @ActivateRequestContext
+    void pollSource() {
+        try {
+            SourceVersion current = sourceVersion();
+            if (!current.equals(loadedVersion)) {
+                LOG.infof("Evaluation vectors changed in the database, reloading the negative vector index");
+            } else if (!stale) {
+                return;
+            }
+            refresh();
+        } catch (Exception e) {
+            LOG.warnf("Failed to check evaluation vectors for changes: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Marks the index stale so the next evaluation reloads it.
+     * When called inside a transaction the index is marked stale again after completion,
+     * so a reload racing with the uncommitted change cannot hide it.
+     */
+    public void invalidate() {
+        markStale();
+
+        if (transactionRegistry.getTransactionStatus() == Status.STATUS_ACTIVE
+                && transactionRegistry.getResource(INVALIDATION_KEY) == null) {
+            transactionRegistry.putResource(INVALIDATION_KEY, Boolean.TRUE);
+            transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    markStale();
+                }
+            });
+        }
+    }
+
+    private void markStale() {
+        invalidations.incrementAndGet();
+        stale = true;
+    }
+
+    private void reload() {
+        synchronized (loadLock) {
+            if (!stale) {
+                return;
+            }
+            stale = false;
+            try {
+                loadIndex();
+            } catch (RuntimeException e) {
+                stale = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Builds the index over vectors loaded elsewhere and swaps it in, without reading the database.
+     * Used by benchmarks, which run without a datasource.
+     */
+    void install(PackedVectors negatives, PackedVectors positives) {
+        synchronized (loadLock) {
+            swap(negatives, positives);
+            stale = false;
+        }
+    }
+
+    private void loadIndex() {
+        // Read before the rows, so a change committed in between is seen again by the next poll
+        SourceVersion version = sourceVersion();
+        PackedVectors negatives = snapshotPath.isPresent()
+            ? loadSnapshot(snapshotPath.get(), version.negatives())
+            : load(VectorType.NEGATIVE);
+        swap(negatives, marginEnabled ? load(VectorType.POSITIVE) : PackedVectors.empty());
+        loadedVersion = version;
+    }
+
+    private void swap(PackedVectors negatives, PackedVectors positives) {
+        VectorIndex built = buildIndex(negatives);
+        marginScorer = marginEnabled ? buildMarginScorer(negatives, positives) : null;
+        index = built;
+    }
+
+    private MarginScorer buildMarginScorer(PackedVectors negatives, PackedVectors positives) {
+        if (!negatives.isEmpty() && !positives.isEmpty() && negatives.dimension() != positives.dimension()) {
+            LOG.warnf("Ignoring positive vectors of dimension %d, negative vectors have dimension %d",
+                positives.dimension(), negatives.dimension());
+            positives = PackedVectors.empty();
+        }
+        return MarginScorer.build(negatives, positives, vectorSimilarityService.kernel());
+    }
+
+    private VectorIndex buildIndex(PackedVectors vectors) {
+        if (marginEnabled) {
+            if (!"exact".equalsIgnoreCase(indexType) || !"none".equalsIgnoreCase(quantizationType)) {
+                LOG.warnf("Margin scoring scans the float vectors, ignoring index type %s and quantization %s",
+                    indexType, quantizationType);
+            }
+            return new ExactVectorIndex(vectors, vectorSimilarityService.kernel());
+        }
+        if ("hnsw".equalsIgnoreCase(indexType) && vectors.size() >= hnswMinVectors) {
+            long start = System.nanoTime();
+            HnswParameters parameters = new HnswParameters(hnswM, hnswEfConstruction, hnswEfSearch, 42L);
+            VectorIndex hnsw = HnswVectorIndex.build(vectors, vectorSimilarityService.kernel(), parameters);
+            LOG.infof("Built HNSW index over %d negative vectors in %d ms (m=%d, efConstruction=%d, efSearch=%d)",
+                vectors.size(), (System.nanoTime() - start) / 1_000_000, hnswM, hnswEfConstruction, hnswEfSearch);
+            return hnsw;
+        }
+        boolean quantize = !"none".equalsIgnoreCase(quantizationType) && !vectors.isEmpty();
+        if (quantize && !vectors.isOffHeap()) {
+            // Re-scoring needs the float rows; kept on heap next to the codes they would save nothing
+            LOG.warnf("Quantization %s needs the negative vectors mapped from evaluation.index.snapshot.path, using an exact scan",
+                quantizationType);
+        } else if (quantize) {
+            QuantizedVectorIndex.Quantization quantization =
+                QuantizedVectorIndex.Quantization.valueOf(quantizationType.toUpperCase(Locale.ROOT));
+            QuantizedVectorIndex quantized = QuantizedVectorIndex.build(
+                vectors, vectorSimilarityService.kernel(), quantization, quantizationRerank);
+            LOG.infof("Quantized %d negative vectors to %s: %d bytes versus %d bytes of float32 mapped off-heap (rerank=%d)",
+                vectors.size(), quantized.name(), quantized.quantizedBytes(),
+                vectors.dataBytes(), quantizationRerank);
+            return quantized;
+        }
+        return new ExactVectorIndex(vectors, vectorSimilarityService.kernel());
+    }
+
+    /**
+     * Maps the snapshot if it matches the database, otherwise loads from the database and rewrites the
+     * snapshot so the vectors are still served off-heap.
+     */
+    private PackedVectors loadSnapshot(Path path, long sourceVersion) {
+        try {
+            Optional<PackedVectors> mapped = VectorSnapshot.map(path, sourceVersion);
+            if (mapped.isPresent()) {
+                LOG.infof("Mapped %d negative vectors from snapshot %s", mapped.get().size(), path);
+                return mapped.get();
+            }
+        } catch (IOException e) {
+            LOG.warnf("Ignoring unreadable snapshot %s: %s", path, e.getMessage());
+        }
+
+        PackedVectors loaded = load(VectorType.NEGATIVE);
+        try {
+            VectorSnapshot.write(path, loaded, sourceVersion);
+            PackedVectors mapped = VectorSnapshot.map(path, sourceVersion).orElse(loaded);
+            LOG.infof("Wrote snapshot of %d negative vectors to %s", loaded.size(), path);
+            return mapped;
+        } catch (IOException e) {
+            LOG.warnf("Failed to write snapshot %s, keeping vectors on heap: %s", path, e.getMessage());
+            return loaded;
+        }
+    }
+
+    private SourceVersion sourceVersion() {
+        return new SourceVersion(digest(VectorType.NEGATIVE), marginEnabled ? digest(VectorType.POSITIVE) : 0L);
+    }
+
+    /**
+     * Identifies the current rows of a type by a digest of their ids, labels and vector bytes, computed
+     * in the database so only the digest is transferred. Any insert, update or delete changes it.
+     */
+    private long digest(VectorType type) {
+        Object digest = EvaluationVector.getEntityManager()
+            .createNativeQuery(SOURCE_DIGEST_SQL)
+            .setParameter(1, type.name())
+            .getSingleResult();
+        return digest == null ? 0L : Long.parseUnsignedLong(digest.toString().substring(0, 16), 16);
+    }
+
+    private PackedVectors load(VectorType type) {
+        List<EvaluationVector> rows = EvaluationVector.list("vectorType", type);
+        String kind = type.name().toLowerCase(Locale.ROOT);
+
+        if (rows.isEmpty()) {
+            LOG.infof("Loaded 0 %s vectors", kind);
+            return PackedVectors.empty();
+        }
+
+        // Dimensions come from the byte lengths, so no row is decoded before the storage is sized
+        int[] dimensions = new int[rows.size()];
+        Map<Integer, Integer> dimensionCounts = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            EvaluationVector row = rows.get(i);
+            dimensions[i] = VectorCodec.dimension(row.vectorBytes, row.vectorEncoding);
+            dimensionCounts.merge(dimensions[i], 1, Integer::sum);
+        }
+
+        Map.Entry<Integer, Integer> majority = dimensionCounts.entrySet().stream()
+            .max(Map.Entry.comparingByValue())
+            .orElseThrow();
+        int dimension = majority.getKey();
+
+        float[] data = new float[majority.getValue() * dimension];
+        UUID[] ids = new UUID[majority.getValue()];
+        String[] labels = new String[majority.getValue()];
+        int packed = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            EvaluationVector row = rows.get(i);
+            if (dimensions[i] != dimension) {
+                LOG.warnf("Skipping %s vector '%s' with dimension %d, expected %d",
+                    kind, row.label, dimensions[i], dimension);
+                continue;
+            }
+            VectorCodec.decodeInto(row.vectorBytes, row.vectorEncoding, data, packed * dimension);
+            ids[packed] = row.id;
+            labels[packed] = row.label;
+            packed++;
+        }
+
+        LOG.infof("Loaded %d %s vectors of dimension %d", packed, kind, dimension);
+        return PackedVectors.wrap(dimension, data, ids, labels);
+    }
+}
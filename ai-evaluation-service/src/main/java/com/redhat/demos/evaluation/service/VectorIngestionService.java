@@ -0,0 +1,282 @@
+package com.redhat.demos.evaluation.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redhat.demos.evaluation.dto.VectorIngestionRecord;
+import com.redhat.demos.evaluation.model.VectorEncoding;
+import com.redhat.demos.evaluation.model.VectorType;
+import com.redhat.demos.evaluation.util.VectorCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bulk loads evaluation vectors from NDJSON.
+ * The upload is spooled to a temporary file and processed in the background: texts are embedded in
+ * batches and the encoded rows staged to a second file, then the rows are replaced and copied in one short
+ * transaction. Once it commits, this instance rebuilds its negative vector index; other instances pick the
+ * change up at their next digest poll. Evaluations keep using the previous vectors throughout.
+ */
+@ApplicationScoped
+public class VectorIngestionService {
+
+    private static final Logger LOG = Logger.getLogger(VectorIngestionService.class);
+
+    private static final String COPY_SQL =
+        "COPY evaluation_vectors (id, vector_bytes, vector_encoding, vector_type, label, created_at) FROM STDIN WITH (FORMAT csv)";
+    private static final String DELETE_SQL = "DELETE FROM evaluation_vectors WHERE vector_type = ?";
+    private static final HexFormat HEX = HexFormat.of();
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    EmbeddingService embeddingService;
+
+    @Inject
+    NegativeVectorIndex negativeVectorIndex;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "evaluation.ingestion.batch-size", defaultValue = "256")
+    int batchSize;
+
+    @ConfigProperty(name = "evaluation.ingestion.retained-jobs", defaultValue = "20")
+    int retainedJobs;
+
+    @ConfigProperty(name = "evaluation.vectors.storage-encoding", defaultValue = "float32")
+    VectorEncoding storageEncoding;
+
+    private Map<UUID, IngestionJob> jobs;
+    private ExecutorService executor;
+
+    @PostConstruct
+    void start() {
+        jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, IngestionJob> eldest) {
+                return size() > retainedJobs;
+            }
+        });
+        // One ingestion at a time, so replacements of the same vector type cannot interleave
+        executor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("vector-ingestion").daemon().factory());
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Spools an NDJSON upload and queues it for ingestion.
+     *
+     * @param ndjson one {@link VectorIngestionRecord} JSON object per line
+     * @param replace whether to replace all existing vectors of each type present in the upload
+     * @return the queued job
+     * @throws IOException if the upload cannot be spooled
+     */
+    public IngestionJob start(InputStream ndjson, boolean replace) throws IOException {
+        Path spool = Files.createTempFile("vector-ingestion-", ".ndjson");
+        try {
+            Files.copy(ndjson, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        IngestionJob job = new IngestionJob(UUID.randomUUID(), replace);
+        jobs.put(job.id(), job);
+        executor.execute(() -> run(job, spool));
+
+        LOG.infof("Queued vector ingestion %s (%d bytes, replace=%s)", job.id(), Files.size(spool), replace);
+        return job;
+    }
+
+    /**
+     * Returns a recent job by id.
+     */
+    public Optional<IngestionJob> find(UUID id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(IngestionJob job, Path spool) {
+        job.running();
+        try {
+            ingest(job, spool);
+
+            // Other instances reload when their digest poll sees the new rows
+            job.swapping();
+            negativeVectorIndex.refresh();
+            job.completed();
+
+            LOG.infof("Vector ingestion %s completed: %s", job.id(), job.status());
+        } catch (Exception e) {
+            LOG.errorf(e, "Vector ingestion %s failed", job.id());
+            job.failed(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                LOG.warnf("Failed to delete ingestion spool file %s: %s", spool, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Embeds and encodes every valid line before opening a transaction, then writes them all in one,
+     * so the new vectors replace the old ones at once without holding locks across embedding calls.
+     */
+    private void ingest(IngestionJob job, Path spool) throws Exception {
+        Path rows = Files.createTempFile("vector-ingestion-", ".csv");
+        try {
+            Set<VectorType> types = stage(job, spool, rows);
+            write(job, rows, types);
+        } finally {
+            Files.deleteIfExists(rows);
+        }
+    }
+
+    /**
+     * Parses, validates and embeds the upload, writing one COPY CSV row per valid line.
+     *
+     * @return the vector types of the staged rows
+     */
+    private Set<VectorType> stage(IngestionJob job, Path spool, Path rows) throws Exception {
+        try (BufferedReader reader = Files.newBufferedReader(spool, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(rows, StandardCharsets.UTF_8)) {
+            Set<VectorType> types = EnumSet.noneOf(VectorType.class);
+            List<VectorIngestionRecord> batch = new ArrayList<>(batchSize);
+            int dimension = expectedDimension();
+
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                job.lineRead();
+
+                VectorIngestionRecord record;
+                try {
+                    record = objectMapper.readValue(line, VectorIngestionRecord.class);
+                    record.validate(dimension);
+                } catch (Exception e) {
+                    job.lineFailed(lineNumber, e.getMessage());
+                    continue;
+                }
+                if (dimension == 0 && !record.needsEmbedding()) {
+                    // Nothing to check against yet: the first embedding sets the dimension for the rest
+                    dimension = record.embedding().length;
+                }
+
+                types.add(record.type());
+                batch.add(record);
+                if (batch.size() == batchSize) {
+                    stageBatch(writer, batch, job);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                stageBatch(writer, batch, job);
+            }
+            return types;
+        }
+    }
+
+    /**
+     * Replaces the staged types when requested and copies the staged rows in one transaction.
+     */
+    private void write(IngestionJob job, Path rows, Set<VectorType> types) throws Exception {
+        try (BufferedReader reader = Files.newBufferedReader(rows, StandardCharsets.UTF_8);
+             Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (job.replace()) {
+                    for (VectorType type : types) {
+                        deleteType(connection, type);
+                    }
+                }
+                long copied = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, reader);
+                connection.commit();
+                job.written(copied);
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the dimension precomputed embeddings must have: the embedding model's, or that of the
+     * loaded negative vectors when the model cannot be reached, or 0 when neither is known.
+     */
+    private int expectedDimension() {
+        try {
+            return embeddingService.dimension();
+        } catch (RuntimeException e) {
+            LOG.warnf("Could not read the embedding model dimension, checking against the loaded vectors: %s", e.getMessage());
+            return negativeVectorIndex.loadedDimension();
+        }
+    }
+
+    private void deleteType(Connection connection, VectorType type) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+            statement.setString(1, type.name());
+            int deleted = statement.executeUpdate();
+            LOG.infof("Replacing %d existing %s vectors", deleted, type);
+        }
+    }
+
+    private void stageBatch(BufferedWriter writer, List<VectorIngestionRecord> batch, IngestionJob job) throws IOException {
+        List<String> texts = batch.stream()
+            .filter(VectorIngestionRecord::needsEmbedding)
+            .map(VectorIngestionRecord::text)
+            .toList();
+        Iterator<float[]> embeddings = texts.isEmpty()
+            ? Collections.emptyIterator()
+            : embeddingService.generateEmbeddings(texts).iterator();
+        job.embedded(texts.size());
+
+        String createdAt = LocalDateTime.now().toString();
+        for (VectorIngestionRecord record : batch) {
+            float[] vector = record.needsEmbedding() ? embeddings.next() : record.embedding();
+            writer.append(UUID.randomUUID()).append(',')
+                .append("\\x").append(HEX.formatHex(VectorCodec.encode(vector, storageEncoding))).append(',')
+                .append(storageEncoding.name()).append(',')
+                .append(record.type().name()).append(',')
+                .append('"').append(record.label().replace("\"", "\"\"")).append('"').append(',')
+                .append(createdAt).append('\n');
+        }
+    }
+}
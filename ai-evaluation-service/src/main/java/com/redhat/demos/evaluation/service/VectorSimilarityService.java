@@ -1,16 +1,44 @@
 package com.redhat.demos.evaluation.service;
 
+import com.redhat.demos.evaluation.index.ExactVectorIndex;
+import com.redhat.demos.evaluation.index.PackedVectors;
+import com.redhat.demos.evaluation.index.SimilarityMatch;
+import com.redhat.demos.evaluation.index.VectorKernel;
+import com.redhat.demos.evaluation.index.VectorKernels;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.util.List;
+
 /**
  * Service for calculating similarity between vector embeddings using cosine similarity.
+ * Dot products run on the SIMD kernel when the Vector API is available, with a scalar fallback.
  */
 @ApplicationScoped
 public class VectorSimilarityService {
 
     private static final Logger LOG = Logger.getLogger(VectorSimilarityService.class);
 
+    @ConfigProperty(name = "evaluation.similarity.simd-enabled", defaultValue = "true")
+    boolean simdEnabled = true;
+
+    private VectorKernel kernel = VectorKernels.preferred();
+
+    @PostConstruct
+    void init() {
+        kernel = simdEnabled ? VectorKernels.preferred() : VectorKernels.scalar();
+        LOG.infof("Vector similarity using %s kernel", kernel.name());
+    }
+
+    /**
+     * Returns the kernel used for dot products.
+     */
+    public VectorKernel kernel() {
+        return kernel;
+    }
+
     /**
      * Calculates the cosine similarity between two vectors.
      * Cosine similarity ranges from -1 (opposite) to 1 (identical).
@@ -21,41 +49,115 @@ public class VectorSimilarityService {
      * @throws IllegalArgumentException if vectors have different dimensions
      */
     public double calculateCosineSimilarity(float[] vectorA, float[] vectorB) {
-        if (vectorA == null || vectorB == null) {
-            throw new IllegalArgumentException("Vectors cannot be null");
+        validateDimensions(vectorA, vectorB);
+
+        double normA = Math.sqrt(kernel.sumOfSquares(vectorA, 0, vectorA.length));
+        double normB = Math.sqrt(kernel.sumOfSquares(vectorB, 0, vectorB.length));
+
+        if (normA == 0.0 || normB == 0.0) {
+            LOG.warn("One or both vectors have zero magnitude, returning 0 similarity");
+            return 0.0;
         }
 
-        if (vectorA.length != vectorB.length) {
+        double similarity = clamp(kernel.dot(vectorA, 0, vectorB, 0, vectorA.length) / (normA * normB));
+
+        LOG.debugf("Calculated cosine similarity: %.4f", similarity);
+        return similarity;
+    }
+
+    /**
+     * Calculates the cosine similarity between two vectors whose L2 norms are already known,
+     * so only the dot product is computed.
+     *
+     * @param vectorA first vector
+     * @param normA the L2 norm of the first vector
+     * @param vectorB second vector
+     * @param normB the L2 norm of the second vector
+     * @return cosine similarity score between -1.0 and 1.0
+     * @throws IllegalArgumentException if vectors have different dimensions
+     */
+    public double calculateCosineSimilarity(float[] vectorA, double normA, float[] vectorB, double normB) {
+        validateDimensions(vectorA, vectorB);
+
+        if (normA == 0.0 || normB == 0.0) {
+            return 0.0;
+        }
+
+        return clamp(kernel.dot(vectorA, 0, vectorB, 0, vectorA.length) / (normA * normB));
+    }
+
+    /**
+     * Calculates the cosine similarity between a query vector and one row of a packed vector set,
+     * using the query norm supplied by the caller and the row norm precomputed by the set.
+     *
+     * @param query the query vector
+     * @param queryNorm the L2 norm of the query vector
+     * @param vectors the packed reference vectors
+     * @param row the row to compare against
+     * @return cosine similarity score between -1.0 and 1.0
+     * @throws IllegalArgumentException if the query dimension does not match the packed vectors
+     */
+    public double calculateCosineSimilarity(float[] query, double queryNorm, PackedVectors vectors, int row) {
+        if (query.length != vectors.dimension()) {
             throw new IllegalArgumentException(
                 String.format("Vector dimensions must match. Got %d and %d",
-                    vectorA.length, vectorB.length)
+                    query.length, vectors.dimension())
             );
         }
 
-        double dotProduct = 0.0;
-        double normA = 0.0;
-        double normB = 0.0;
-
-        for (int i = 0; i < vectorA.length; i++) {
-            dotProduct += vectorA[i] * vectorB[i];
-            normA += vectorA[i] * vectorA[i];
-            normB += vectorB[i] * vectorB[i];
+        double rowNorm = vectors.norm(row);
+        if (queryNorm == 0.0 || rowNorm == 0.0) {
+            return 0.0;
         }
 
-        normA = Math.sqrt(normA);
-        normB = Math.sqrt(normB);
+        float dotProduct = vectors.dot(kernel, query, 0, row);
+        return clamp(dotProduct / (queryNorm * rowNorm));
+    }
 
-        if (normA == 0.0 || normB == 0.0) {
-            LOG.warn("One or both vectors have zero magnitude, returning 0 similarity");
-            return 0.0;
-        }
+    /**
+     * Scores a query vector against every row of a packed vector set in one pass and
+     * returns the most similar row.
+     *
+     * @param query the query vector
+     * @param vectors the packed reference vectors
+     * @return the best match, or {@link SimilarityMatch#NONE} if the set is empty
+     * @throws IllegalArgumentException if the query dimension does not match the packed vectors
+     */
+    public SimilarityMatch findMostSimilar(float[] query, PackedVectors vectors) {
+        return new ExactVectorIndex(vectors, kernel).findMostSimilar(query);
+    }
+
+    /**
+     * Scores a query vector against every row of a packed vector set in one pass and
+     * returns the {@code k} most similar rows, best first.
+     *
+     * @param query the query vector
+     * @param vectors the packed reference vectors
+     * @param k the maximum number of matches to return
+     * @return up to {@code k} matches ordered by descending score
+     * @throws IllegalArgumentException if the query dimension does not match the packed vectors
+     */
+    public List<SimilarityMatch> findTopK(float[] query, PackedVectors vectors, int k) {
+        return new ExactVectorIndex(vectors, kernel).search(query, k);
+    }
 
-        double similarity = dotProduct / (normA * normB);
+    private static void validateDimensions(float[] vectorA, float[] vectorB) {
+        if (vectorA == null || vectorB == null) {
+            throw new IllegalArgumentException("Vectors cannot be null");
+        }
 
-        // Ensure result is between -1 and 1 due to floating point precision
-        similarity = Math.max(-1.0, Math.min(1.0, similarity));
+        if (vectorA.length != vectorB.length) {
+            throw new IllegalArgumentException(
+                String.format("Vector dimensions must match. Got %d and %d",
+                    vectorA.length, vectorB.length)
+            );
+        }
+    }
 
-        LOG.debugf("Calculated cosine similarity: %.4f", similarity);
-        return similarity;
+    /**
+     * Ensures the result is between -1 and 1 despite floating point rounding.
+     */
+    private static double clamp(double similarity) {
+        return Math.max(-1.0, Math.min(1.0, similarity));
     }
 }
@@ -0,0 +1,101 @@
+package com.redhat.demos.evaluation.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over 128-bit keys.
+ * {@link #mightContain} never returns false for a key that was added, and returns true for a key
+ * that was not added with roughly the configured false-positive rate while no more than the expected
+ * number of keys have been added.
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final AtomicLong added = new AtomicLong();
+
+    /**
+     * @param expectedEntries the number of keys the filter is sized for
+     * @param falsePositiveRate the false-positive rate at {@code expectedEntries}, between 0 and 1
+     */
+    public BloomFilter(long expectedEntries, double falsePositiveRate) {
+        if (expectedEntries < 1) {
+            throw new IllegalArgumentException("Expected entries must be positive");
+        }
+        if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+
+        // Optimal sizing: m = -n ln p / (ln 2)^2 bits and k = m / n ln 2 hash functions
+        long optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = Math.toIntExact(Math.max(1, (optimalBits + Long.SIZE - 1) / Long.SIZE));
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = (long) wordCount * Long.SIZE;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedEntries * Math.log(2)));
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param high the high 64 bits of the key
+     * @param low the low 64 bits of the key
+     */
+    public void put(long high, long low) {
+        long h1 = mix(high);
+        long h2 = mix(low) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+        added.incrementAndGet();
+    }
+
+    /**
+     * Returns false if the key was definitely never added, true if it may have been.
+     *
+     * @param high the high 64 bits of the key
+     * @param low the low 64 bits of the key
+     */
+    public boolean mightContain(long high, long low) {
+        long h1 = mix(high);
+        long h2 = mix(low) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of keys added, counting repeated keys each time.
+     */
+    public long added() {
+        return added.get();
+    }
+
+    /**
+     * Returns the size of the bit array in bytes.
+     */
+    public long sizeBytes() {
+        return bits / Byte.SIZE;
+    }
+
+    /**
+     * Finalizer of SplitMix64, so keys with little entropy in some bits still spread across the array.
+     */
+    private static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
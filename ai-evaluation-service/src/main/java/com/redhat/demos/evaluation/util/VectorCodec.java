@@ -0,0 +1,147 @@
+package com.redhat.demos.evaluation.util;
+
+import com.redhat.demos.evaluation.model.VectorEncoding;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+/**
+ * Binary codec for stored embeddings.
+ * FLOAT32 rows are raw little-endian floats and decode with a single bulk copy; FLOAT16 and INT8
+ * trade precision for a half or a quarter of the bytes.
+ */
+public final class VectorCodec {
+
+    /** Little-endian float32 element layout of a FLOAT32 row. */
+    public static final ValueLayout.OfFloat FLOAT_LE = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private static final ValueLayout.OfShort SHORT_LE = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final int INT8_HEADER_BYTES = Float.BYTES;
+
+    private VectorCodec() {
+    }
+
+    /**
+     * Encodes a vector in the given layout.
+     *
+     * @param vector the embedding vector
+     * @param encoding the binary layout to use
+     * @return the encoded bytes
+     */
+    public static byte[] encode(float[] vector, VectorEncoding encoding) {
+        if (vector == null) {
+            throw new IllegalArgumentException("Vector cannot be null");
+        }
+
+        return switch (encoding) {
+            case FLOAT32 -> {
+                byte[] bytes = new byte[vector.length * Float.BYTES];
+                MemorySegment.copy(vector, 0, MemorySegment.ofArray(bytes), FLOAT_LE, 0, vector.length);
+                yield bytes;
+            }
+            case FLOAT16 -> {
+                byte[] bytes = new byte[vector.length * Short.BYTES];
+                MemorySegment segment = MemorySegment.ofArray(bytes);
+                for (int i = 0; i < vector.length; i++) {
+                    segment.setAtIndex(SHORT_LE, i, Float.floatToFloat16(vector[i]));
+                }
+                yield bytes;
+            }
+            case INT8 -> {
+                float maxAbs = 0.0f;
+                for (float value : vector) {
+                    maxAbs = Math.max(maxAbs, Math.abs(value));
+                }
+                float scale = maxAbs / 127.0f;
+
+                byte[] bytes = new byte[INT8_HEADER_BYTES + vector.length];
+                MemorySegment.ofArray(bytes).set(FLOAT_LE, 0, scale);
+                for (int i = 0; i < vector.length; i++) {
+                    bytes[INT8_HEADER_BYTES + i] = scale == 0.0f ? 0 : (byte) Math.round(vector[i] / scale);
+                }
+                yield bytes;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of elements encoded in the given bytes.
+     *
+     * @throws IllegalArgumentException if the length is not valid for the encoding
+     */
+    public static int dimension(byte[] bytes, VectorEncoding encoding) {
+        int elementBytes = encoding == VectorEncoding.INT8 ? bytes.length - INT8_HEADER_BYTES : bytes.length;
+        int elementSize = switch (encoding) {
+            case FLOAT32 -> Float.BYTES;
+            case FLOAT16 -> Short.BYTES;
+            case INT8 -> Byte.BYTES;
+        };
+
+        if (elementBytes < 0 || elementBytes % elementSize != 0) {
+            throw new IllegalArgumentException(
+                String.format("Invalid %s vector of %d bytes", encoding, bytes.length)
+            );
+        }
+        return elementBytes / elementSize;
+    }
+
+    /**
+     * Decodes bytes into a new float array.
+     *
+     * @param bytes the encoded vector
+     * @param encoding the layout the bytes were written with
+     * @return the decoded vector
+     */
+    public static float[] decode(byte[] bytes, VectorEncoding encoding) {
+        float[] vector = new float[dimension(bytes, encoding)];
+        decodeInto(bytes, encoding, vector, 0);
+        return vector;
+    }
+
+    /**
+     * Decodes bytes straight into {@code target} starting at {@code offset}, so rows can be written
+     * into packed storage without an intermediate array.
+     *
+     * @param bytes the encoded vector
+     * @param encoding the layout the bytes were written with
+     * @param target the array to write into
+     * @param offset the index of the first element to write
+     * @return the number of elements written
+     */
+    public static int decodeInto(byte[] bytes, VectorEncoding encoding, float[] target, int offset) {
+        int dimension = dimension(bytes, encoding);
+        if (offset < 0 || offset + dimension > target.length) {
+            throw new IllegalArgumentException(
+                String.format("Target of length %d cannot hold %d elements at offset %d", target.length, dimension, offset)
+            );
+        }
+
+        MemorySegment segment = MemorySegment.ofArray(bytes);
+        switch (encoding) {
+            case FLOAT32 -> MemorySegment.copy(segment, FLOAT_LE, 0, target, offset, dimension);
+            case FLOAT16 -> {
+                for (int i = 0; i < dimension; i++) {
+                    target[offset + i] = Float.float16ToFloat(segment.getAtIndex(SHORT_LE, i));
+                }
+            }
+            case INT8 -> {
+                float scale = segment.get(FLOAT_LE, 0);
+                for (int i = 0; i < dimension; i++) {
+                    target[offset + i] = bytes[INT8_HEADER_BYTES + i] * scale;
+                }
+            }
+        }
+        return dimension;
+    }
+
+    /**
+     * Returns a view of FLOAT32 bytes as a memory segment of {@link #FLOAT_LE} elements, without copying.
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid FLOAT32 vector
+     */
+    public static MemorySegment view(byte[] bytes) {
+        dimension(bytes, VectorEncoding.FLOAT32);
+        return MemorySegment.ofArray(bytes);
+    }
+}
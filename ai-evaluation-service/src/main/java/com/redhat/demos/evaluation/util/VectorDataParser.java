@@ -1,16 +1,27 @@
 package com.redhat.demos.evaluation.util;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.jboss.logging.Logger;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+
 /**
  * Utility class for parsing vector data from JSON format.
+ * Reads and writes the embedding array token by token, without building a JSON tree or boxing elements.
  */
 public class VectorDataParser {
 
     private static final Logger LOG = Logger.getLogger(VectorDataParser.class);
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final String EMBEDDING_FIELD = "embedding";
+    private static final int INITIAL_CAPACITY = 512;
 
     /**
      * Parses a JSON string containing vector embedding data into a float array.
@@ -21,23 +32,52 @@ public class VectorDataParser {
      * @throws RuntimeException if parsing fails
      */
     public static float[] parseVectorData(String jsonData) {
-        try {
-            JsonNode root = MAPPER.readTree(jsonData);
-            JsonNode embeddingNode = root.get("embedding");
+        try (JsonParser parser = FACTORY.createParser(jsonData)) {
+            seekEmbedding(parser);
 
-            if (embeddingNode == null || !embeddingNode.isArray()) {
-                throw new IllegalArgumentException("JSON must contain an 'embedding' array");
+            float[] vector = new float[INITIAL_CAPACITY];
+            int size = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (size == vector.length) {
+                    vector = Arrays.copyOf(vector, size * 2);
+                }
+                vector[size++] = readFloat(parser, token);
             }
 
-            int size = embeddingNode.size();
-            float[] vector = new float[size];
+            LOG.debugf("Parsed vector of dimension %d from JSON", size);
+            return size == vector.length ? vector : Arrays.copyOf(vector, size);
 
-            for (int i = 0; i < size; i++) {
-                vector[i] = (float) embeddingNode.get(i).asDouble();
-            }
+        } catch (Exception e) {
+            LOG.error("Failed to parse vector data from JSON", e);
+            throw new RuntimeException("Failed to parse vector data: " + e.getMessage(), e);
+        }
+    }
 
-            LOG.debugf("Parsed vector of dimension %d from JSON", size);
-            return vector;
+    /**
+     * Parses the embedding array straight into a caller-supplied array, so a buffer can be reused
+     * across rows or rows can be written into packed storage.
+     *
+     * @param jsonData JSON string containing the embedding array
+     * @param target the array to write into
+     * @param offset the index of the first element to write
+     * @return the number of elements written
+     * @throws RuntimeException if parsing fails or the embedding does not fit in the target
+     */
+    public static int parseVectorData(String jsonData, float[] target, int offset) {
+        try (JsonParser parser = FACTORY.createParser(jsonData)) {
+            seekEmbedding(parser);
+
+            int index = offset;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (index == target.length) {
+                    throw new IllegalArgumentException(String.format(
+                        "Embedding does not fit in %d elements from offset %d", target.length - offset, offset));
+                }
+                target[index++] = readFloat(parser, token);
+            }
+            return index - offset;
 
         } catch (Exception e) {
             LOG.error("Failed to parse vector data from JSON", e);
@@ -53,16 +93,10 @@ public class VectorDataParser {
      */
     public static String toJsonString(float[] vector) {
         try {
-            StringBuilder json = new StringBuilder("{\"embedding\": [");
-
-            for (int i = 0; i < vector.length; i++) {
-                if (i > 0) {
-                    json.append(", ");
-                }
-                json.append(vector[i]);
+            StringWriter json = new StringWriter(vector.length * 12 + 16);
+            try (JsonGenerator generator = FACTORY.createGenerator(json)) {
+                writeEmbedding(generator, vector);
             }
-
-            json.append("]}");
             return json.toString();
 
         } catch (Exception e) {
@@ -70,4 +104,72 @@ public class VectorDataParser {
             throw new RuntimeException("Failed to convert vector to JSON: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Converts a float array to UTF-8 JSON bytes in the format {"embedding": [...]}.
+     *
+     * @param vector the embedding vector
+     * @return the encoded JSON
+     */
+    public static byte[] toJsonBytes(float[] vector) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(vector.length * 12 + 16);
+        writeJson(vector, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Streams a float array as UTF-8 JSON in the format {"embedding": [...]}.
+     * The stream is flushed but not closed.
+     *
+     * @param vector the embedding vector
+     * @param out the stream to write to
+     */
+    public static void writeJson(float[] vector, OutputStream out) {
+        try (JsonGenerator generator = FACTORY.createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            writeEmbedding(generator, vector);
+
+        } catch (Exception e) {
+            LOG.error("Failed to convert vector to JSON", e);
+            throw new RuntimeException("Failed to convert vector to JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Advances the parser to the first element of the top-level "embedding" array, skipping other fields.
+     */
+    private static void seekEmbedding(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("JSON must contain an 'embedding' array");
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (EMBEDDING_FIELD.equals(field) && value == JsonToken.START_ARRAY) {
+                return;
+            }
+            parser.skipChildren();
+        }
+
+        throw new IllegalArgumentException("JSON must contain an 'embedding' array");
+    }
+
+    private static float readFloat(JsonParser parser, JsonToken token) throws IOException {
+        if (token == null || !token.isNumeric()) {
+            throw new IllegalArgumentException("Embedding elements must be numbers, got " + token);
+        }
+        return parser.getFloatValue();
+    }
+
+    private static void writeEmbedding(JsonGenerator generator, float[] vector) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(EMBEDDING_FIELD);
+        generator.writeStartArray(vector, vector.length);
+        for (float value : vector) {
+            generator.writeNumber(value);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
 }
@@ -0,0 +1,14 @@
+-- Migration: Create embedding_cache table
+-- Description: Optional persistent tier of the embedding cache, keyed by a hash of model name and normalized content
+-- Reversible: Yes (see rollback script)
+
+-- Create embedding_cache table
+CREATE TABLE embedding_cache (
+    cache_key VARCHAR(64) PRIMARY KEY,
+    model_name VARCHAR(255) NOT NULL,
+    vector_data JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- Rollback script (to be executed manually if needed):
+-- DROP TABLE embedding_cache;
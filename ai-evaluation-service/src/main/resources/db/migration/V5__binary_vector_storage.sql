@@ -0,0 +1,58 @@
+-- Migration: Store embeddings as binary vectors
+-- Description: Adds vector_bytes (little-endian float32 bytea) and vector_encoding to evaluation_vectors,
+--              converts the existing jsonb embeddings and clears vector_data. The embedding_cache table
+--              is emptied and switched to the same binary format.
+-- Reversible: Yes (see rollback script)
+
+-- Add binary vector columns
+ALTER TABLE evaluation_vectors
+    ADD COLUMN vector_bytes BYTEA,
+    ADD COLUMN vector_encoding VARCHAR(10);
+
+-- Convert {"embedding": [...]} to little-endian float32: float4send is big-endian, so each
+-- element's 4 bytes are reversed before the elements are concatenated in array order
+UPDATE evaluation_vectors v
+SET vector_bytes = encoded.bytes,
+    vector_encoding = 'FLOAT32'
+FROM (
+    SELECT ev.id,
+           decode(string_agg(substr(h.hex, 7, 2) || substr(h.hex, 5, 2) || substr(h.hex, 3, 2) || substr(h.hex, 1, 2),
+                             '' ORDER BY e.ordinality), 'hex') AS bytes
+    FROM evaluation_vectors ev,
+         LATERAL jsonb_array_elements_text(ev.vector_data -> 'embedding') WITH ORDINALITY AS e(value, ordinality),
+         LATERAL (SELECT encode(float4send(e.value::float4), 'hex') AS hex) AS h
+    GROUP BY ev.id
+) AS encoded
+WHERE v.id = encoded.id;
+
+-- Rows with an empty embedding array have no elements to aggregate
+UPDATE evaluation_vectors
+SET vector_bytes = ''::bytea,
+    vector_encoding = 'FLOAT32'
+WHERE vector_bytes IS NULL;
+
+ALTER TABLE evaluation_vectors
+    ALTER COLUMN vector_bytes SET NOT NULL,
+    ALTER COLUMN vector_encoding SET NOT NULL,
+    ADD CONSTRAINT chk_evaluation_vectors_encoding CHECK (vector_encoding IN ('FLOAT32', 'FLOAT16', 'INT8')),
+    ALTER COLUMN vector_data DROP NOT NULL;
+
+-- The jsonb copy is no longer read
+UPDATE evaluation_vectors SET vector_data = NULL;
+
+-- Cached embeddings are recomputed on demand, so the cache is emptied rather than converted
+TRUNCATE embedding_cache;
+ALTER TABLE embedding_cache
+    DROP COLUMN vector_data,
+    ADD COLUMN vector_bytes BYTEA NOT NULL;
+
+-- Rollback script (to be executed manually if needed):
+-- TRUNCATE embedding_cache;
+-- ALTER TABLE embedding_cache DROP COLUMN vector_bytes, ADD COLUMN vector_data JSONB NOT NULL;
+-- Repopulate vector_data from vector_bytes with the application (EvaluationVector.vector() and
+-- VectorDataParser.toJsonString), since float32 bytes cannot be decoded in SQL, then:
+-- ALTER TABLE evaluation_vectors
+--     DROP CONSTRAINT chk_evaluation_vectors_encoding,
+--     DROP COLUMN vector_bytes,
+--     DROP COLUMN vector_encoding,
+--     ALTER COLUMN vector_data SET NOT NULL;
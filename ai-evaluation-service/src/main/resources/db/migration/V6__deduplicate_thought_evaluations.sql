@@ -0,0 +1,14 @@
+-- Migration: Deduplicate thought evaluations
+-- Description: Adds content_hash (hex SHA-256 of the evaluated content) to thought_evaluations with a unique
+--              index on (thought_id, content_hash), so a redelivered or replayed event inserts no second row.
+--              Existing rows keep a NULL hash, which the unique index does not compare.
+-- Reversible: Yes (see rollback script)
+
+ALTER TABLE thought_evaluations
+    ADD COLUMN content_hash VARCHAR(64);
+
+CREATE UNIQUE INDEX uq_thought_evaluations_thought_content ON thought_evaluations(thought_id, content_hash);
+
+-- Rollback script (to be executed manually if needed):
+-- DROP INDEX uq_thought_evaluations_thought_content;
+-- ALTER TABLE thought_evaluations DROP COLUMN content_hash;
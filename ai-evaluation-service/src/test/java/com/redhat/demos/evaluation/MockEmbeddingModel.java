@@ -41,7 +41,10 @@ public class MockEmbeddingModel implements EmbeddingModel {
 
     @Override
     public Response<List<Embedding>> embedAll(List<TextSegment> list) {
-        throw new UnsupportedOperationException("embedAll not implemented in mock");
+        List<Embedding> embeddings = list.stream()
+            .map(segment -> embed(segment).content())
+            .toList();
+        return Response.from(embeddings);
     }
 
     /**
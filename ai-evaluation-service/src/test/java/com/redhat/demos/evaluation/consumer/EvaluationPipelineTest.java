@@ -0,0 +1,93 @@
+package com.redhat.demos.evaluation.consumer;
+
+import com.redhat.demos.evaluation.dto.ThoughtContent;
+import com.redhat.demos.evaluation.model.ThoughtEvaluation;
+import com.redhat.demos.evaluation.model.ThoughtStatus;
+import com.redhat.demos.evaluation.service.EvaluationService;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for EvaluationPipeline ordering and failure isolation.
+ */
+@QuarkusTest
+class EvaluationPipelineTest {
+
+    @Inject
+    EvaluationPipeline pipeline;
+
+    @InjectMock
+    EvaluationService evaluationService;
+
+    @Test
+    void testEvaluationsOfSameThoughtRunInSubmissionOrder() throws Exception {
+        // Arrange: the first evaluation is slow, so a concurrent second one would finish first
+        UUID thoughtId = UUID.randomUUID();
+        List<String> completed = new CopyOnWriteArrayList<>();
+        when(evaluationService.scoreThought(eq(thoughtId), any())).thenAnswer(invocation -> {
+            String content = invocation.getArgument(1);
+            if (content.equals("first")) {
+                Thread.sleep(200);
+            }
+            completed.add(content);
+            return approved(thoughtId);
+        });
+
+        // Act
+        CompletableFuture<Void> first = pipeline.submit(new ThoughtContent(thoughtId, "first"), UUID.randomUUID());
+        CompletableFuture<Void> second = pipeline.submit(new ThoughtContent(thoughtId, "second"), UUID.randomUUID());
+        CompletableFuture.allOf(first, second).join();
+
+        // Assert
+        assertEquals(List.of("first", "second"), completed);
+        assertEquals(0, pipeline.inFlight());
+    }
+
+    @Test
+    void testFailedEvaluationStillCompletes() throws Exception {
+        // Arrange
+        UUID thoughtId = UUID.randomUUID();
+        doThrow(new RuntimeException("Evaluation failed")).when(evaluationService).scoreThought(any(), any());
+
+        // Act
+        CompletableFuture<Void> done = pipeline.submit(new ThoughtContent(thoughtId, "content"), UUID.randomUUID());
+
+        // Assert - completes normally so the record is still acknowledged
+        assertDoesNotThrow(done::join);
+        verify(evaluationService, times(1)).scoreThought(thoughtId, "content");
+    }
+
+    @Test
+    void testEvaluationIsCommittedBeforeCompletion() throws Exception {
+        // Arrange
+        UUID thoughtId = UUID.randomUUID();
+        when(evaluationService.scoreThought(eq(thoughtId), any())).thenReturn(approved(thoughtId));
+
+        // Act
+        pipeline.submit(new ThoughtContent(thoughtId, "content"), UUID.randomUUID()).join();
+
+        // Assert - the row is visible as soon as the future completes
+        assertEquals(1, ThoughtEvaluation.count("thoughtId", thoughtId));
+    }
+
+    private static ThoughtEvaluation approved(UUID thoughtId) {
+        ThoughtEvaluation evaluation = new ThoughtEvaluation();
+        evaluation.thoughtId = thoughtId;
+        evaluation.status = ThoughtStatus.APPROVED;
+        evaluation.similarityScore = BigDecimal.valueOf(0.1);
+        evaluation.metadata = "{}";
+        return evaluation;
+    }
+}
@@ -1,15 +1,22 @@
 package com.redhat.demos.evaluation.consumer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redhat.demos.evaluation.dto.ThoughtContent;
 import com.redhat.demos.evaluation.dto.ThoughtEvent;
+import com.redhat.demos.evaluation.service.EvaluationDeduplicator;
 import com.redhat.demos.evaluation.service.EvaluationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.test.InjectMock;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +38,9 @@ class ThoughtEvaluationConsumerTest {
     @Inject
     ObjectMapper objectMapper;
 
+    @Inject
+    MeterRegistry registry;
+
     @Test
     void testConsumeValidThoughtCreatedEvent() throws Exception {
         // Arrange
@@ -73,6 +83,30 @@ class ThoughtEvaluationConsumerTest {
         verify(evaluationService, never()).evaluateThought(any(), any());
     }
 
+    @Test
+    void testDroppedAndCompletedRecordsAreCounted() throws Exception {
+        // Arrange
+        ThoughtEvent event = new ThoughtEvent();
+        event.setThoughtId(UUID.randomUUID());
+        event.setThoughtContent("Test content");
+        event.setEventType("CREATED");
+        doThrow(new RuntimeException("Evaluation failed")).when(evaluationService).evaluateThought(any(), any());
+
+        double malformed = dropped("malformed");
+        double failed = dropped("evaluation-failed");
+        double completed = registry.get("evaluation.consumer.records.completed").counter().count();
+
+        // Act
+        consumer.consumeThoughtEvent("{invalid json}");
+        consumer.consumeThoughtEvent(objectMapper.writeValueAsString(event));
+
+        // Assert
+        assertEquals(malformed + 1, dropped("malformed"));
+        assertEquals(failed + 1, dropped("evaluation-failed"));
+        assertEquals(completed + 2, registry.get("evaluation.consumer.records.completed").counter().count());
+        assertEquals(0.0, registry.get("evaluation.consumer.records.in.flight").gauge().value());
+    }
+
     @Test
     void testConsumeEventWithMissingThoughtId() throws Exception {
         // Arrange
@@ -201,4 +235,162 @@ class ThoughtEvaluationConsumerTest {
         // Assert
         verify(evaluationService, times(2)).evaluateThought(any(UUID.class), anyString());
     }
+
+    @Test
+    void testConsumeBatchEvaluatesValidEventsTogether() throws Exception {
+        // Arrange
+        UUID thoughtId1 = UUID.randomUUID();
+        UUID thoughtId2 = UUID.randomUUID();
+
+        ThoughtEvent event1 = new ThoughtEvent();
+        event1.setThoughtId(thoughtId1);
+        event1.setThoughtContent("First thought");
+        event1.setEventType("CREATED");
+
+        ThoughtEvent event2 = new ThoughtEvent();
+        event2.setThoughtId(thoughtId2);
+        event2.setThoughtContent("Second thought");
+        event2.setEventType("CREATED");
+
+        List<String> batch = List.of(
+            objectMapper.writeValueAsString(event1),
+            "{invalid json}",
+            objectMapper.writeValueAsString(event2));
+
+        // Act
+        consumer.consumeThoughtEvents(batch);
+
+        // Assert - one batch call with only the valid events, no per-thought calls
+        verify(evaluationService, times(1)).evaluateThoughts(List.of(
+            new ThoughtContent(thoughtId1, "First thought"),
+            new ThoughtContent(thoughtId2, "Second thought")));
+        verify(evaluationService, never()).evaluateThought(any(), any());
+    }
+
+    @Test
+    void testConsumeBatchFallsBackToIndividualEvaluationOnFailure() throws Exception {
+        // Arrange
+        UUID thoughtId1 = UUID.randomUUID();
+        UUID thoughtId2 = UUID.randomUUID();
+
+        ThoughtEvent event1 = new ThoughtEvent();
+        event1.setThoughtId(thoughtId1);
+        event1.setThoughtContent("First thought");
+        event1.setEventType("CREATED");
+
+        ThoughtEvent event2 = new ThoughtEvent();
+        event2.setThoughtId(thoughtId2);
+        event2.setThoughtContent("Second thought");
+        event2.setEventType("CREATED");
+
+        doThrow(new RuntimeException("Batch failed")).when(evaluationService).evaluateThoughts(anyList());
+
+        // Act
+        assertDoesNotThrow(() -> consumer.consumeThoughtEvents(List.of(
+            objectMapper.writeValueAsString(event1),
+            objectMapper.writeValueAsString(event2))));
+
+        // Assert
+        verify(evaluationService, times(1)).evaluateThought(thoughtId1, "First thought");
+        verify(evaluationService, times(1)).evaluateThought(thoughtId2, "Second thought");
+    }
+
+    @Test
+    void testUpdateWithoutContentChangeIsSkippedFromHeaders() throws Exception {
+        // Arrange
+        UUID thoughtId = UUID.randomUUID();
+        ThoughtEvent event = new ThoughtEvent();
+        event.setThoughtId(thoughtId);
+        event.setThoughtContent("Current content");
+
+        String previousHash = EvaluationDeduplicator.contentHash("Content before the edit");
+        String hash = EvaluationDeduplicator.contentHash("Current content");
+        RecordHeaders authorEdit = headers("UPDATED", hash, hash);
+        RecordHeaders contentEdit = headers("UPDATED", hash, previousHash);
+        double unchanged = skipped("unchanged");
+
+        // Act
+        consumer.consumeThoughtEvent(objectMapper.writeValueAsString(event), authorEdit);
+        consumer.consumeThoughtEvent(objectMapper.writeValueAsString(event), contentEdit);
+
+        // Assert - only the content edit is evaluated
+        verify(evaluationService, times(1)).evaluateThought(thoughtId, "Current content");
+        assertEquals(unchanged + 1, skipped("unchanged"));
+    }
+
+    @Test
+    void testDeletedEventIsNotEvaluated() throws Exception {
+        // Arrange
+        ThoughtEvent event = new ThoughtEvent();
+        event.setThoughtId(UUID.randomUUID());
+        event.setThoughtContent("Deleted thought content");
+
+        // Act
+        consumer.consumeThoughtEvent(objectMapper.writeValueAsString(event), headers("DELETED", EvaluationDeduplicator.contentHash("Deleted thought content"), null));
+
+        // Assert
+        verify(evaluationService, never()).evaluateThought(any(), any());
+    }
+
+    @Test
+    void testConsumeVersionedEnvelopeFromBackend() {
+        // Arrange - the payload as ThoughtEventService publishes it
+        UUID thoughtId = UUID.randomUUID();
+        String hash = EvaluationDeduplicator.contentHash("An envelope carries only what consumers need");
+        String envelope = "{\"version\":1,\"eventType\":\"CREATED\",\"id\":\"" + thoughtId + "\","
+            + "\"content\":\"An envelope carries only what consumers need\",\"contentHash\":\"" + hash + "\","
+            + "\"author\":\"Unknown\",\"authorBio\":\"Unknown\",\"status\":\"IN_REVIEW\","
+            + "\"timestamp\":\"2026-01-01T12:00:00\"}";
+        RecordHeaders headers = headers("CREATED", hash, null);
+        headers.add(ThoughtEvaluationConsumer.HEADER_THOUGHT_ID, thoughtId.toString().getBytes(StandardCharsets.UTF_8));
+        headers.add(ThoughtEvaluationConsumer.HEADER_EVENT_VERSION, "1".getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        consumer.consumeThoughtEvent(envelope, headers);
+
+        // Assert
+        verify(evaluationService, times(1)).evaluateThought(thoughtId, "An envelope carries only what consumers need");
+    }
+
+    @Test
+    void testNewerEventVersionIsDropped() throws Exception {
+        // Arrange
+        ThoughtEvent event = new ThoughtEvent();
+        event.setThoughtId(UUID.randomUUID());
+        event.setThoughtContent("Content in a format from the future");
+        event.setVersion(ThoughtEvaluationConsumer.SUPPORTED_EVENT_VERSION + 1);
+        double unsupported = dropped("unsupported-version");
+
+        // Act - once with the version in the header, once only in the payload
+        RecordHeaders headers = headers("CREATED", EvaluationDeduplicator.contentHash("Content in a format from the future"), null);
+        headers.add(ThoughtEvaluationConsumer.HEADER_EVENT_VERSION,
+            String.valueOf(ThoughtEvaluationConsumer.SUPPORTED_EVENT_VERSION + 1).getBytes(StandardCharsets.UTF_8));
+        consumer.consumeThoughtEvent(objectMapper.writeValueAsString(event), headers);
+        consumer.consumeThoughtEvent(objectMapper.writeValueAsString(event));
+
+        // Assert
+        verify(evaluationService, never()).evaluateThought(any(), any());
+        assertEquals(unsupported + 2, dropped("unsupported-version"));
+    }
+
+    private static RecordHeaders headers(String eventType, String contentHash, String previousContentHash) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(ThoughtEvaluationConsumer.HEADER_EVENT_TYPE, eventType.getBytes(StandardCharsets.UTF_8));
+        headers.add(ThoughtEvaluationConsumer.HEADER_CONTENT_HASH, contentHash.getBytes(StandardCharsets.UTF_8));
+        if (previousContentHash != null) {
+            headers.add(ThoughtEvaluationConsumer.HEADER_PREVIOUS_CONTENT_HASH,
+                previousContentHash.getBytes(StandardCharsets.UTF_8));
+        }
+        return headers;
+    }
+
+    private double skipped(String reason) {
+        Counter counter = registry.find("evaluation.consumer.records.skipped").tag("reason", reason).counter();
+        return counter == null ? 0.0 : counter.count();
+    }
+
+    private double dropped(String reason) {
+        Counter counter = registry.find("evaluation.consumer.records.dropped").tag("reason", reason).counter();
+        return counter == null ? 0.0 : counter.count();
+    }
 }
@@ -0,0 +1,53 @@
+package com.redhat.demos.evaluation.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the early-exit scan of the exact index.
+ */
+class ExactVectorIndexTest {
+
+    private static final PackedVectors VECTORS = PackedVectors.of(2,
+        List.of(new float[]{1.0f, 0.0f}, new float[]{0.0f, 1.0f}, new float[]{0.6f, 0.8f}),
+        List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()),
+        List.of("x", "y", "diagonal"));
+
+    @Test
+    void testFindFirstAboveReturnsMostSimilarWhenNothingExceedsThreshold() {
+        ExactVectorIndex index = new ExactVectorIndex(VECTORS, VectorKernels.scalar());
+        float[] query = {0.8f, 0.6f};
+
+        SimilarityMatch match = index.findFirstAbove(query, 0.99);
+
+        assertEquals(index.findMostSimilar(query), match);
+    }
+
+    @Test
+    void testFindFirstAboveStopsAtFirstRowAboveThreshold() {
+        ExactVectorIndex index = new ExactVectorIndex(VECTORS, VectorKernels.scalar());
+
+        // Rows 0 (0.8) and 2 (0.96) both exceed 0.5; row 0 comes first in the initial order
+        SimilarityMatch match = index.findFirstAbove(new float[]{0.8f, 0.6f}, 0.5);
+
+        assertEquals(0, match.row());
+        assertEquals(0.8, match.score(), 1e-6);
+    }
+
+    @Test
+    void testFrequentlyMatchedRowsAreScannedFirst() {
+        HitRateOrder order = new HitRateOrder(3, 4);
+
+        order.recordHit(2);
+        order.recordHit(2);
+        order.recordHit(1);
+        order.recordHit(2);
+
+        assertArrayEquals(new int[]{2, 1, 0}, order.order());
+        assertEquals(3, order.hits(2));
+    }
+}
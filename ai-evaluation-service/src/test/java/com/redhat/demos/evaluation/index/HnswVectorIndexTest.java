@@ -0,0 +1,79 @@
+package com.redhat.demos.evaluation.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the HNSW index against the exact linear scan.
+ */
+class HnswVectorIndexTest {
+
+    private static final int DIMENSION = 64;
+
+    @Test
+    void testHnswRecallAgainstExactScan() {
+        Random random = new Random(11);
+        PackedVectors vectors = randomVectors(random, 2000);
+        ExactVectorIndex exact = new ExactVectorIndex(vectors, VectorKernels.scalar());
+        HnswVectorIndex hnsw = HnswVectorIndex.build(vectors, VectorKernels.scalar(), new HnswParameters(16, 100, 64, 42L));
+
+        int hits = 0;
+        int queries = 100;
+        for (int i = 0; i < queries; i++) {
+            float[] query = randomVector(random);
+            if (exact.findMostSimilar(query).row() == hnsw.findMostSimilar(query).row()) {
+                hits++;
+            }
+        }
+
+        assertTrue(hits >= 90, "HNSW top-1 recall should be at least 0.9 but was " + hits / (double) queries);
+    }
+
+    @Test
+    void testHnswFindsIndexedVectorExactly() {
+        Random random = new Random(3);
+        PackedVectors vectors = randomVectors(random, 500);
+        HnswVectorIndex hnsw = HnswVectorIndex.build(vectors, VectorKernels.scalar(), new HnswParameters(8, 64, 32, 42L));
+
+        float[] query = new float[DIMENSION];
+        System.arraycopy(vectors.data(), vectors.offset(123), query, 0, DIMENSION);
+
+        SimilarityMatch match = hnsw.findMostSimilar(query);
+
+        assertEquals(123, match.row());
+        assertEquals(1.0, match.score(), 0.0001);
+    }
+
+    @Test
+    void testEmptyIndexReturnsNoMatch() {
+        HnswVectorIndex hnsw = HnswVectorIndex.build(PackedVectors.empty(), VectorKernels.scalar(), new HnswParameters(16, 100, 64, 42L));
+
+        assertTrue(hnsw.findMostSimilar(new float[DIMENSION]).isNone());
+    }
+
+    private static PackedVectors randomVectors(Random random, int size) {
+        List<float[]> rows = new ArrayList<>(size);
+        List<UUID> ids = new ArrayList<>(size);
+        List<String> labels = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(randomVector(random));
+            ids.add(UUID.randomUUID());
+            labels.add("vector-" + i);
+        }
+        return PackedVectors.of(DIMENSION, rows, ids, labels);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
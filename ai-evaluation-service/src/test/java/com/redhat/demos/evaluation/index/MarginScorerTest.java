@@ -0,0 +1,89 @@
+package com.redhat.demos.evaluation.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the fused negative and positive scan.
+ */
+class MarginScorerTest {
+
+    private static final PackedVectors NEGATIVES = PackedVectors.of(2,
+        List.of(new float[]{1.0f, 0.0f}, new float[]{0.6f, 0.8f}),
+        List.of(UUID.randomUUID(), UUID.randomUUID()),
+        List.of("x", "diagonal"));
+
+    private static final PackedVectors POSITIVES = PackedVectors.of(2,
+        List.of(new float[]{0.0f, 1.0f}, new float[]{-1.0f, 0.0f}),
+        List.of(UUID.randomUUID(), UUID.randomUUID()),
+        List.of("y", "minus-x"));
+
+    @Test
+    void testScoreMatchesSeparateExactScans() {
+        MarginScorer scorer = MarginScorer.build(NEGATIVES, POSITIVES, VectorKernels.scalar());
+        float[] query = {0.8f, 0.6f};
+
+        MarginScore score = scorer.score(query);
+
+        assertEquals(new ExactVectorIndex(NEGATIVES, VectorKernels.scalar()).findMostSimilar(query), score.negative());
+        assertEquals(new ExactVectorIndex(POSITIVES, VectorKernels.scalar()).findMostSimilar(query), score.positive());
+        // Negative row 1 scores 0.96, positive row 0 scores 0.6
+        assertEquals(1, score.negative().row());
+        assertEquals(0, score.positive().row());
+        assertEquals(0.36, score.margin(), 1e-6);
+    }
+
+    @Test
+    void testPositiveRowsAreNumberedWithinPositives() {
+        MarginScorer scorer = MarginScorer.build(NEGATIVES, POSITIVES, VectorKernels.scalar());
+
+        MarginScore score = scorer.score(new float[]{-1.0f, 0.0f});
+
+        assertEquals(1, score.positive().row());
+        assertEquals("minus-x", scorer.positives().label(score.positive().row()));
+        assertTrue(score.margin() < 0.0);
+    }
+
+    @Test
+    void testOnlyPositivesAreScoredWithoutNegatives() {
+        MarginScorer scorer = MarginScorer.build(PackedVectors.empty(), POSITIVES, VectorKernels.scalar());
+
+        MarginScore score = scorer.score(new float[]{0.0f, 1.0f});
+
+        assertTrue(score.negative().isNone());
+        assertEquals(new SimilarityMatch(0, 1.0), score.positive());
+    }
+
+    @Test
+    void testMissingPositivesCountAsZero() {
+        MarginScorer scorer = MarginScorer.build(NEGATIVES, PackedVectors.empty(), VectorKernels.scalar());
+
+        MarginScore score = scorer.score(new float[]{1.0f, 0.0f});
+
+        assertTrue(score.positive().isNone());
+        assertEquals(score.negative().score(), score.margin(), 1e-9);
+    }
+
+    @Test
+    void testEmptyScorerReturnsNone() {
+        MarginScorer scorer = MarginScorer.build(PackedVectors.empty(), PackedVectors.empty(), VectorKernels.scalar());
+
+        MarginScore score = scorer.score(new float[]{1.0f, 0.0f});
+
+        assertTrue(score.negative().isNone());
+        assertTrue(score.positive().isNone());
+    }
+
+    @Test
+    void testBuildRejectsMismatchedDimensions() {
+        PackedVectors threeDimensional = PackedVectors.of(3,
+            List.of(new float[]{1.0f, 0.0f, 0.0f}), List.of(UUID.randomUUID()), List.of("z"));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> MarginScorer.build(NEGATIVES, threeDimensional, VectorKernels.scalar()));
+    }
+}
@@ -0,0 +1,112 @@
+package com.redhat.demos.evaluation.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies quantized scoring with exact re-ranking against the exact linear scan.
+ */
+class QuantizedVectorIndexTest {
+
+    private static final int DIMENSION = 128;
+    private static final double THRESHOLD = 0.85;
+
+    @Test
+    void testInt8DecisionsAgreeWithExactScanAtThreshold() {
+        Random random = new Random(5);
+        PackedVectors vectors = randomVectors(random, 1000);
+        ExactVectorIndex exact = new ExactVectorIndex(vectors, VectorKernels.scalar());
+        QuantizedVectorIndex int8 = QuantizedVectorIndex.build(vectors, VectorKernels.scalar(),
+            QuantizedVectorIndex.Quantization.INT8, 16);
+
+        DecisionAgreement agreement = DecisionAgreement.measure(int8, exact, nearThresholdQueries(random, vectors, 200), THRESHOLD, 0.05);
+
+        assertEquals(1.0, agreement.agreementRate(), agreement.toString());
+        assertTrue(agreement.boundaryQueries() > 0);
+        assertEquals(1000L * DIMENSION + 1000L * Float.BYTES, int8.quantizedBytes());
+    }
+
+    @Test
+    void testBinaryWithRerankFindsExactBestMatch() {
+        Random random = new Random(6);
+        PackedVectors vectors = randomVectors(random, 1000);
+        ExactVectorIndex exact = new ExactVectorIndex(vectors, VectorKernels.scalar());
+        QuantizedVectorIndex binary = QuantizedVectorIndex.build(vectors, VectorKernels.scalar(),
+            QuantizedVectorIndex.Quantization.BINARY, 32);
+
+        for (float[] query : nearThresholdQueries(random, vectors, 100)) {
+            SimilarityMatch expected = exact.findMostSimilar(query);
+            SimilarityMatch actual = binary.findMostSimilar(query);
+            assertEquals(expected.row(), actual.row());
+            // Re-ranked scores are exact, not estimates
+            assertEquals(expected.score(), actual.score(), 1e-6);
+        }
+        assertEquals(1000L * DIMENSION / 8, binary.quantizedBytes());
+    }
+
+    @Test
+    void testZeroQueryScoresLikeExactScan() {
+        PackedVectors vectors = randomVectors(new Random(8), 100);
+        ExactVectorIndex exact = new ExactVectorIndex(vectors, VectorKernels.scalar());
+        QuantizedVectorIndex int8 = QuantizedVectorIndex.build(vectors, VectorKernels.scalar(),
+            QuantizedVectorIndex.Quantization.INT8, 8);
+        float[] zero = new float[DIMENSION];
+
+        assertEquals(exact.search(zero, 3), int8.search(zero, 3));
+        assertEquals(exact.findMostSimilar(zero), int8.findMostSimilar(zero));
+    }
+
+    @Test
+    void testEmptyIndexReturnsNoMatch() {
+        QuantizedVectorIndex index = QuantizedVectorIndex.build(PackedVectors.empty(), VectorKernels.scalar(),
+            QuantizedVectorIndex.Quantization.INT8, 8);
+
+        assertTrue(index.findMostSimilar(new float[DIMENSION]).isNone());
+    }
+
+    /**
+     * Queries at a cosine similarity between 0.80 and 0.90 to a random indexed row.
+     */
+    private static List<float[]> nearThresholdQueries(Random random, PackedVectors vectors, int count) {
+        List<float[]> queries = new ArrayList<>(count);
+        for (int q = 0; q < count; q++) {
+            int row = random.nextInt(vectors.size());
+            double cosine = 0.80 + random.nextDouble() * 0.10;
+            float[] noise = randomVector(random);
+            float noiseNorm = PackedVectors.norm(noise, 0, DIMENSION);
+            float[] query = new float[DIMENSION];
+            for (int i = 0; i < DIMENSION; i++) {
+                double base = vectors.data()[vectors.offset(row) + i] / vectors.norm(row);
+                query[i] = (float) (cosine * base + Math.sqrt(1 - cosine * cosine) * noise[i] / noiseNorm);
+            }
+            queries.add(query);
+        }
+        return queries;
+    }
+
+    private static PackedVectors randomVectors(Random random, int count) {
+        List<float[]> rows = new ArrayList<>(count);
+        List<UUID> ids = new ArrayList<>(count);
+        List<String> labels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(randomVector(random));
+            ids.add(UUID.randomUUID());
+            labels.add("vector-" + i);
+        }
+        return PackedVectors.of(DIMENSION, rows, ids, labels);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,105 @@
+package com.redhat.demos.evaluation.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the SIMD kernel with the scalar kernel on shapes that exercise the vector tails:
+ * an odd dimension that is not a multiple of any lane count, and a row count that is not a multiple
+ * of the four rows the SIMD {@code dotAll} scores per pass.
+ */
+class VectorKernelTest {
+
+    private static final int DIMENSION = 389;
+    private static final int ROWS = 7;
+    private static final double TOLERANCE = 1e-3;
+
+    private final VectorKernel simd = new SimdVectorKernel();
+    private final VectorKernel scalar = VectorKernels.scalar();
+
+    @Test
+    void testDotMatchesScalar() {
+        Random random = new Random(3);
+        float[] a = randomFloats(random, DIMENSION + 5);
+        float[] b = randomFloats(random, DIMENSION + 11);
+
+        assertEquals(scalar.dot(a, 0, b, 0, DIMENSION), simd.dot(a, 0, b, 0, DIMENSION), TOLERANCE);
+        assertEquals(scalar.dot(a, 5, b, 11, DIMENSION), simd.dot(a, 5, b, 11, DIMENSION), TOLERANCE);
+        assertEquals(scalar.sumOfSquares(a, 3, DIMENSION), simd.sumOfSquares(a, 3, DIMENSION), TOLERANCE);
+    }
+
+    @Test
+    void testSegmentDotMatchesScalar() {
+        Random random = new Random(5);
+        float[] query = randomFloats(random, DIMENSION);
+        float[] matrix = randomFloats(random, ROWS * DIMENSION);
+
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = toSegment(arena, matrix);
+            for (int row = 0; row < ROWS; row++) {
+                long index = (long) row * DIMENSION;
+                assertEquals(scalar.dot(query, 0, segment, index, DIMENSION),
+                    simd.dot(query, 0, segment, index, DIMENSION), TOLERANCE, "row " + row);
+                assertEquals(scalar.dot(query, 0, matrix, (int) index, DIMENSION),
+                    simd.dot(query, 0, segment, index, DIMENSION), TOLERANCE, "row " + row);
+            }
+        }
+    }
+
+    @Test
+    void testDotAllMatchesScalar() {
+        Random random = new Random(7);
+        float[] query = randomFloats(random, DIMENSION);
+        float[] matrix = randomFloats(random, ROWS * DIMENSION);
+
+        float[] expected = new float[ROWS + 2];
+        float[] actual = new float[ROWS + 2];
+        scalar.dotAll(query, matrix, ROWS, expected, 2);
+        simd.dotAll(query, matrix, ROWS, actual, 2);
+
+        assertEquals(0.0f, actual[0]);
+        assertEquals(0.0f, actual[1]);
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals(expected[2 + row], actual[2 + row], TOLERANCE, "row " + row);
+        }
+    }
+
+    @Test
+    void testSegmentDotAllMatchesScalar() {
+        Random random = new Random(11);
+        float[] query = randomFloats(random, DIMENSION);
+        float[] matrix = randomFloats(random, ROWS * DIMENSION);
+
+        float[] expected = new float[ROWS + 3];
+        float[] actual = new float[ROWS + 3];
+        scalar.dotAll(query, matrix, ROWS, expected, 3);
+        try (Arena arena = Arena.ofConfined()) {
+            simd.dotAll(query, toSegment(arena, matrix), ROWS, actual, 3);
+        }
+
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals(expected[3 + row], actual[3 + row], TOLERANCE, "row " + row);
+        }
+    }
+
+    private static MemorySegment toSegment(Arena arena, float[] values) {
+        MemorySegment segment = arena.allocate((long) values.length * Float.BYTES, Float.BYTES);
+        for (int i = 0; i < values.length; i++) {
+            segment.setAtIndex(PackedVectors.FLOAT_LE, i, values[i]);
+        }
+        return segment;
+    }
+
+    private static float[] randomFloats(Random random, int length) {
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextFloat() * 2 - 1;
+        }
+        return values;
+    }
+}
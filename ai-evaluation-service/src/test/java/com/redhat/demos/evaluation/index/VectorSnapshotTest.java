@@ -0,0 +1,86 @@
+package com.redhat.demos.evaluation.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for memory-mapped vector snapshots.
+ */
+class VectorSnapshotTest {
+
+    private static final int DIMENSION = 48;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testMappedSnapshotMatchesHeapVectors() throws Exception {
+        Random random = new Random(9);
+        PackedVectors heap = randomVectors(random, 200);
+        Path path = directory.resolve("negative.snap");
+
+        VectorSnapshot.write(path, heap, 42L);
+        PackedVectors mapped = VectorSnapshot.map(path, 42L).orElseThrow();
+
+        assertTrue(mapped.isOffHeap());
+        assertEquals(heap.size(), mapped.size());
+        assertEquals(heap.dimension(), mapped.dimension());
+        for (int row = 0; row < heap.size(); row++) {
+            assertArrayEquals(heap.row(row), mapped.row(row));
+            assertEquals(heap.norm(row), mapped.norm(row));
+            assertEquals(heap.id(row), mapped.id(row));
+            assertEquals(heap.label(row), mapped.label(row));
+        }
+
+        // Scans over the mapped rows give the same results as over the heap rows
+        float[] query = randomVector(random);
+        assertEquals(new ExactVectorIndex(heap, VectorKernels.scalar()).search(query, 5),
+            new ExactVectorIndex(mapped, VectorKernels.scalar()).search(query, 5));
+    }
+
+    @Test
+    void testSnapshotFromDifferentSourceVersionIsIgnored() throws Exception {
+        Path path = directory.resolve("negative.snap");
+        VectorSnapshot.write(path, randomVectors(new Random(1), 10), 1L);
+
+        assertTrue(VectorSnapshot.map(path, 2L).isEmpty());
+        assertTrue(VectorSnapshot.map(directory.resolve("missing.snap"), 1L).isEmpty());
+    }
+
+    @Test
+    void testEmptySetRoundTrips() throws Exception {
+        Path path = directory.resolve("empty.snap");
+
+        VectorSnapshot.write(path, PackedVectors.empty(), 0L);
+
+        assertTrue(VectorSnapshot.map(path, 0L).orElseThrow().isEmpty());
+    }
+
+    private static PackedVectors randomVectors(Random random, int count) {
+        List<float[]> rows = new ArrayList<>(count);
+        List<UUID> ids = new ArrayList<>(count);
+        List<String> labels = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(randomVector(random));
+            ids.add(UUID.randomUUID());
+            labels.add("vector-" + i + "-é");
+        }
+        return PackedVectors.of(DIMENSION, rows, ids, labels);
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -145,6 +145,48 @@ public class EndToEndEvaluationFlowTest {
         assertEquals(ThoughtStatus.APPROVED, eval3.status);
     }
 
+    @Test
+    @Transactional
+    public void testBatchOfEventsEvaluatedAndPersistedTogether() throws Exception {
+        // Arrange: Create a poll-sized batch of events
+        UUID thoughtId1 = UUID.randomUUID();
+        UUID thoughtId2 = UUID.randomUUID();
+
+        List<String> batch = List.of(
+            objectMapper.writeValueAsString(createThoughtEvent(thoughtId1, "A wonderful opportunity today")),
+            objectMapper.writeValueAsString(createThoughtEvent(thoughtId2, "This is awful and terrible")));
+
+        // Act: Consume the batch
+        consumer.consumeThoughtEvents(batch);
+
+        // Assert: Both evaluations persisted with the expected status
+        assertEquals(2, ThoughtEvaluation.count(), "Both evaluations should be persisted");
+        assertEquals(ThoughtStatus.APPROVED,
+            ThoughtEvaluation.<ThoughtEvaluation>find("thoughtId", thoughtId1).firstResult().status);
+        assertEquals(ThoughtStatus.REJECTED,
+            ThoughtEvaluation.<ThoughtEvaluation>find("thoughtId", thoughtId2).firstResult().status);
+    }
+
+    @Test
+    @Transactional
+    public void testReplayedEventsAreEvaluatedOncePerContent() throws Exception {
+        // Arrange: The same event delivered again, and an edit of the same thought
+        UUID thoughtId = UUID.randomUUID();
+        String original = objectMapper.writeValueAsString(createThoughtEvent(thoughtId, "A wonderful opportunity today"));
+        String edited = objectMapper.writeValueAsString(createThoughtEvent(thoughtId, "A wonderful opportunity tomorrow"));
+
+        // Act: Consume the original, replay it singly and within a poll, then consume the edit
+        consumer.consumeThoughtEvent(original);
+        consumer.consumeThoughtEvent(original);
+        consumer.consumeThoughtEvents(List.of(original, original));
+        consumer.consumeThoughtEvent(edited);
+
+        // Assert: One evaluation for each distinct content
+        List<ThoughtEvaluation> evaluations = ThoughtEvaluation.find("thoughtId", thoughtId).list();
+        assertEquals(2, evaluations.size(), "Replays should not be evaluated again");
+        assertNotEquals(evaluations.get(0).contentHash, evaluations.get(1).contentHash);
+    }
+
     private ThoughtEvent createThoughtEvent(UUID thoughtId, String content) {
         ThoughtEvent event = new ThoughtEvent();
         event.setThoughtId(thoughtId);
@@ -0,0 +1,147 @@
+package com.redhat.demos.evaluation.resource;
+
+import com.redhat.demos.evaluation.model.EvaluationVector;
+import com.redhat.demos.evaluation.model.VectorType;
+import com.redhat.demos.evaluation.service.NegativeVectorIndex;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.response.Response;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class VectorIngestionResourceTest {
+
+    @Inject
+    NegativeVectorIndex negativeVectorIndex;
+
+    @BeforeEach
+    @Transactional
+    public void setup() {
+        // Clean up test data
+        EvaluationVector.deleteAll();
+    }
+
+    @Test
+    public void testIngestTextsAndEmbeddings() throws Exception {
+        String embedding = "[" + "0.5,".repeat(383) + "0.5]";
+        String ndjson = String.join("\n",
+                "{\"label\":\"hateful\",\"type\":\"NEGATIVE\",\"text\":\"I hate everyone\"}",
+                "{\"label\":\"violent\",\"type\":\"NEGATIVE\",\"text\":\"Violence solves everything\"}",
+                "{\"label\":\"kind\",\"type\":\"POSITIVE\",\"embedding\":" + embedding + "}",
+                "{\"label\":\"\",\"type\":\"NEGATIVE\",\"text\":\"missing label\"}",
+                "not json");
+
+        Response response = given()
+                .contentType("application/x-ndjson")
+                .body(ndjson)
+                .when()
+                .post("/vectors/ingestions")
+                .then()
+                .statusCode(202)
+                .header("Location", containsString("/vectors/ingestions/"))
+                .extract().response();
+
+        String status = awaitFinished(response.path("id"));
+        assertEquals("COMPLETED", status);
+
+        given()
+                .pathParam("id", response.<String>path("id"))
+                .when()
+                .get("/vectors/ingestions/{id}")
+                .then()
+                .statusCode(200)
+                .body("linesRead", is(5))
+                .body("embedded", is(2))
+                .body("written", is(3))
+                .body("failed", is(2))
+                .body("errors.size()", is(2));
+
+        assertEquals(2, countVectors(VectorType.NEGATIVE));
+        assertEquals(1, countVectors(VectorType.POSITIVE));
+        assertEquals(2, negativeVectorIndex.vectors().size());
+    }
+
+    @Test
+    public void testReplaceRemovesExistingVectorsOfIngestedType() throws Exception {
+        String first = "{\"label\":\"old\",\"type\":\"NEGATIVE\",\"text\":\"old negative\"}";
+        awaitFinished(given().contentType("application/x-ndjson").body(first)
+                .post("/vectors/ingestions").then().statusCode(202).extract().path("id"));
+
+        String second = "{\"label\":\"new\",\"type\":\"NEGATIVE\",\"text\":\"new negative\"}";
+        String status = awaitFinished(given().contentType("application/x-ndjson").body(second)
+                .queryParam("replace", true)
+                .post("/vectors/ingestions").then().statusCode(202).extract().path("id"));
+
+        assertEquals("COMPLETED", status);
+        assertEquals(1, countVectors(VectorType.NEGATIVE));
+        assertEquals("new", negativeVectorIndex.vectors().label(0));
+    }
+
+    @Test
+    public void testRejectsEmbeddingsOfTheWrongDimension() throws Exception {
+        String ndjson = String.join("\n",
+                "{\"label\":\"short\",\"type\":\"NEGATIVE\",\"embedding\":[0.5,0.5,0.5]}",
+                "{\"label\":\"empty\",\"type\":\"NEGATIVE\",\"text\":\"I hate everyone\",\"embedding\":[]}");
+
+        String id = given().contentType("application/x-ndjson").body(ndjson)
+                .post("/vectors/ingestions").then().statusCode(202).extract().path("id");
+        assertEquals("COMPLETED", awaitFinished(id));
+
+        given()
+                .pathParam("id", id)
+                .when()
+                .get("/vectors/ingestions/{id}")
+                .then()
+                .statusCode(200)
+                .body("embedded", is(1))
+                .body("written", is(1))
+                .body("failed", is(1))
+                .body("errors[0]", containsString("expected 384"));
+
+        assertEquals(384, negativeVectorIndex.vectors().dimension());
+    }
+
+    @Test
+    public void testGetIngestionNotFound() {
+        given()
+                .pathParam("id", UUID.randomUUID().toString())
+                .when()
+                .get("/vectors/ingestions/{id}")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    public void testGetIngestionInvalidId() {
+        given()
+                .pathParam("id", "not-a-uuid")
+                .when()
+                .get("/vectors/ingestions/{id}")
+                .then()
+                .statusCode(400);
+    }
+
+    private String awaitFinished(String id) throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String state = given().pathParam("id", id).get("/vectors/ingestions/{id}").path("state");
+            if ("COMPLETED".equals(state) || "FAILED".equals(state)) {
+                return state;
+            }
+            Thread.sleep(100);
+        }
+        fail("Ingestion " + id + " did not finish");
+        return null;
+    }
+
+    private long countVectors(VectorType type) {
+        return EvaluationVector.count("vectorType", type);
+    }
+}
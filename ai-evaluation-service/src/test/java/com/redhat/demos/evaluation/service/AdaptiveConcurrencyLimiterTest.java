@@ -0,0 +1,112 @@
+package com.redhat.demos.evaluation.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void testAcquireWaitsThenTimesOutAtLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 4);
+
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire(0, TimeUnit.MILLISECONDS);
+        AdaptiveConcurrencyLimiter.Permit second = limiter.acquire(0, TimeUnit.MILLISECONDS);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(limiter.acquire(10, TimeUnit.MILLISECONDS), "A third call must not be admitted at limit 2");
+
+        first.success();
+        assertNotNull(limiter.acquire(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testLimitGrowsWhileLatencyIsFlat() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 16, clock::get);
+
+        for (int round = 0; round < 20; round++) {
+            fullRound(limiter, clock, 10_000_000);
+        }
+
+        assertEquals(16, limiter.limit(), "Flat latency at full use should grow the limit to its maximum");
+        assertEquals(0, limiter.inFlight());
+        assertEquals(10_000_000, limiter.minRttNanos());
+    }
+
+    @Test
+    public void testLimitShrinksWhenLatencyShowsQueueing() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 1, 32, clock::get);
+
+        fullRound(limiter, clock, 10_000_000);
+        int baseline = limiter.limit();
+        for (int round = 0; round < 5; round++) {
+            // Twice the baseline latency: about half of the concurrent calls are queued at the server
+            fullRound(limiter, clock, 20_000_000);
+        }
+
+        assertTrue(limiter.limit() < baseline, "Rising latency should lower the limit");
+    }
+
+    @Test
+    public void testLimitIsNotRaisedWhenMostlyIdle() throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 16, clock::get);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire(0, TimeUnit.MILLISECONDS).success();
+        }
+
+        assertEquals(8, limiter.limit());
+    }
+
+    @Test
+    public void testFailuresBackOffToMinimum() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 16);
+
+        limiter.acquire(0, TimeUnit.MILLISECONDS).dropped();
+        assertEquals(9, limiter.limit());
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire(0, TimeUnit.MILLISECONDS).dropped();
+        }
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    public void testPermitReleasesOnce() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 2);
+
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(0, TimeUnit.MILLISECONDS);
+        permit.success();
+        permit.dropped();
+
+        assertEquals(0, limiter.inFlight());
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    public void testRejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(1, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(1, 4, 2));
+    }
+
+    /**
+     * Starts as many calls as the limit allows and completes them all after {@code latencyNanos}.
+     */
+    private static void fullRound(AdaptiveConcurrencyLimiter limiter, AtomicLong clock, long latencyNanos)
+            throws InterruptedException {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = limiter.limit(); i > 0; i--) {
+            permits.add(limiter.acquire(0, TimeUnit.MILLISECONDS));
+        }
+        clock.addAndGet(latencyNanos);
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::success);
+    }
+}
@@ -0,0 +1,53 @@
+package com.redhat.demos.evaluation.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class EmbeddingServiceTest {
+
+    @Inject
+    EmbeddingService embeddingService;
+
+    @Test
+    public void testConcurrentRequestsAreBatchedAndFannedOut() {
+        List<CompletableFuture<float[]>> futures = IntStream.range(0, 20)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> embeddingService.generateEmbedding(
+                i % 2 == 0 ? "I hate this terrible day" : "I am grateful for this opportunity")))
+            .toList();
+
+        for (int i = 0; i < futures.size(); i++) {
+            float[] vector = futures.get(i).join();
+            assertEquals(384, vector.length);
+            if (i % 2 == 0) {
+                assertTrue(vector[0] < -0.06f, "Negative text should receive the negative mock embedding");
+            }
+        }
+    }
+
+    @Test
+    public void testNormalizedDuplicateContentIsServedFromCache() {
+        float[] first = embeddingService.generateEmbedding("A  wonderful\tmorning for   a walk");
+        float[] second = embeddingService.generateEmbedding("  A wonderful morning for a walk ");
+
+        assertArrayEquals(first, second);
+        assertEquals(EmbeddingCache.normalize("  A wonderful\tmorning "), "A wonderful morning");
+    }
+
+    @Test
+    public void testGenerateEmbeddingsPreservesOrder() {
+        List<float[]> vectors = embeddingService.generateEmbeddings(
+            List.of("What an awful idea", "A wonderful opportunity", "Neutral statement"));
+
+        assertEquals(3, vectors.size());
+        assertTrue(vectors.get(0)[0] < -0.06f);
+        assertTrue(vectors.get(2)[0] < 0.06f && vectors.get(2)[0] > -0.06f);
+    }
+}
@@ -1,15 +1,23 @@
 package com.redhat.demos.evaluation.service;
 
+import com.redhat.demos.evaluation.index.PackedVectors;
+import com.redhat.demos.evaluation.index.SimilarityMatch;
+import com.redhat.demos.evaluation.index.VectorKernels;
 import com.redhat.demos.evaluation.model.EvaluationVector;
 import com.redhat.demos.evaluation.model.ThoughtEvaluation;
 import com.redhat.demos.evaluation.model.ThoughtStatus;
+import com.redhat.demos.evaluation.model.VectorEncoding;
 import com.redhat.demos.evaluation.model.VectorType;
+import com.redhat.demos.evaluation.util.VectorCodec;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,6 +28,9 @@ public class EvaluationServiceTest {
     @Inject
     EvaluationService evaluationService;
 
+    @Inject
+    NegativeVectorIndex negativeVectorIndex;
+
     @BeforeEach
     @Transactional
     public void seedVectors() {
@@ -71,6 +82,33 @@ public class EvaluationServiceTest {
         assertTrue(result.similarityScore.doubleValue() > 0.85);
     }
 
+    @Test
+    @Transactional
+    public void testNegativeVectorIndexReflectsPersistedVectors() {
+        assertEquals(1, negativeVectorIndex.vectors().size());
+        assertEquals("Test negative vector", negativeVectorIndex.vectors().label(0));
+        assertEquals(384, negativeVectorIndex.vectors().dimension());
+    }
+
+    @Test
+    public void testNegativeVectorIndexPicksUpRowsWrittenWithSql() {
+        assertEquals(1, QuarkusTransaction.requiringNew().call(() -> negativeVectorIndex.vectors().size()));
+
+        // A native insert bypasses the entity listener, as a write from another replica would
+        float[] vector = new float[384];
+        Arrays.fill(vector, -0.09f);
+        QuarkusTransaction.requiringNew().run(() -> EvaluationVector.getEntityManager()
+            .createNativeQuery("INSERT INTO evaluation_vectors (id, vector_bytes, vector_encoding, vector_type, label, created_at) "
+                + "VALUES (?1, ?2, 'FLOAT32', 'NEGATIVE', 'Written with SQL', now())")
+            .setParameter(1, UUID.randomUUID())
+            .setParameter(2, VectorCodec.encode(vector, VectorEncoding.FLOAT32))
+            .executeUpdate());
+
+        negativeVectorIndex.pollSource();
+
+        assertEquals(2, QuarkusTransaction.requiringNew().call(() -> negativeVectorIndex.vectors().size()));
+    }
+
     @Test
     public void testVectorSimilarityCalculation() {
         VectorSimilarityService similarityService = new VectorSimilarityService();
@@ -95,6 +133,47 @@ public class EvaluationServiceTest {
         assertEquals(0.0, similarity, 0.001);
     }
 
+    @Test
+    public void testVectorSimilarity_PrecomputedNormsMatchFullCalculation() {
+        VectorSimilarityService similarityService = new VectorSimilarityService();
+
+        float[] vector1 = new float[384];
+        float[] vector2 = new float[384];
+        for (int i = 0; i < 384; i++) {
+            vector1[i] = (float) Math.sin(i);
+            vector2[i] = (float) Math.cos(i * 0.5);
+        }
+
+        double expected = similarityService.calculateCosineSimilarity(vector1, vector2);
+        double actual = similarityService.calculateCosineSimilarity(
+            vector1, PackedVectors.norm(vector1, 0, 384),
+            vector2, PackedVectors.norm(vector2, 0, 384));
+
+        assertEquals(expected, actual, 0.0001);
+        assertEquals(expected, VectorKernels.scalar().dot(vector1, 0, vector2, 0, 384)
+            / (PackedVectors.norm(vector1, 0, 384) * PackedVectors.norm(vector2, 0, 384)), 0.0001);
+    }
+
+    @Test
+    public void testFindTopKScoresAllRowsInOnePass() {
+        VectorSimilarityService similarityService = new VectorSimilarityService();
+
+        PackedVectors vectors = PackedVectors.of(3,
+            List.of(new float[]{0.0f, 1.0f, 0.0f}, new float[]{1.0f, 0.0f, 0.0f}, new float[]{1.0f, 1.0f, 0.0f}),
+            List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()),
+            List.of("orthogonal", "identical", "diagonal"));
+        float[] query = {1.0f, 0.0f, 0.0f};
+
+        SimilarityMatch best = similarityService.findMostSimilar(query, vectors);
+        List<SimilarityMatch> topTwo = similarityService.findTopK(query, vectors, 2);
+
+        assertEquals("identical", vectors.label(best.row()));
+        assertEquals(1.0, best.score(), 0.001);
+        assertEquals(2, topTwo.size());
+        assertEquals("identical", vectors.label(topTwo.get(0).row()));
+        assertEquals("diagonal", vectors.label(topTwo.get(1).row()));
+    }
+
     @Test
     @Transactional
     public void testEvaluationPersistence() {
@@ -110,6 +189,20 @@ public class EvaluationServiceTest {
         assertTrue(result.metadata.contains("threshold"));
     }
 
+    @Test
+    @Transactional
+    public void testReevaluatingSameContentReturnsStoredEvaluation() {
+        UUID thoughtId = UUID.randomUUID();
+        String content = "This is a test thought evaluated twice";
+
+        ThoughtEvaluation first = evaluationService.evaluateThought(thoughtId, content);
+        ThoughtEvaluation second = evaluationService.evaluateThought(thoughtId, content);
+
+        assertEquals(first.id, second.id);
+        assertEquals(first.status, second.status);
+        assertEquals(1, ThoughtEvaluation.count("thoughtId", thoughtId));
+    }
+
     /**
      * Creates a JSON representation of a negative vector.
      * This matches the pattern used by the mock embedding model for negative content.
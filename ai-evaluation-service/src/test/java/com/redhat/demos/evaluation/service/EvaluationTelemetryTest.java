@@ -0,0 +1,68 @@
+package com.redhat.demos.evaluation.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.OpenTelemetry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationTelemetryTest {
+
+    private SimpleMeterRegistry registry;
+    private EvaluationTelemetry telemetry;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        telemetry = new EvaluationTelemetry();
+        telemetry.registry = registry;
+        telemetry.tracer = OpenTelemetry.noop().getTracer("test");
+        telemetry.modelName = "test-model";
+    }
+
+    @Test
+    public void testStagesAreRecordedWithStageModelAndSizeTags() {
+        try (EvaluationTelemetry.Stage ignored = telemetry.stage(EvaluationTelemetry.STAGE_EMBEDDING, -1)) {
+            // timed
+        }
+        try (EvaluationTelemetry.Stage ignored = telemetry.stage(EvaluationTelemetry.STAGE_SCORING, 250)) {
+            // timed
+        }
+        try (EvaluationTelemetry.Stage scoring = telemetry.stage(EvaluationTelemetry.STAGE_SCORING, -1)) {
+            scoring.negativeSetSize(420);
+        }
+
+        Timer embedding = timer(EvaluationTelemetry.STAGE_EMBEDDING, "unknown");
+        assertEquals(1, embedding.count());
+        assertEquals("test-model", embedding.getId().getTag("model"));
+
+        Timer scoring = timer(EvaluationTelemetry.STAGE_SCORING, "100-999");
+        assertEquals(2, scoring.count(), "Both scoring stages fall in the same size bucket");
+        assertEquals("test-model", scoring.getId().getTag("model"));
+
+        assertEquals(2, registry.find(EvaluationTelemetry.STAGE_TIMER).timers().size());
+    }
+
+    @Test
+    public void testSizeBucketBoundaries() {
+        assertEquals("unknown", EvaluationTelemetry.sizeBucket(-1));
+        assertEquals("0", EvaluationTelemetry.sizeBucket(0));
+        assertEquals("1-9", EvaluationTelemetry.sizeBucket(1));
+        assertEquals("1-9", EvaluationTelemetry.sizeBucket(9));
+        assertEquals("10-99", EvaluationTelemetry.sizeBucket(10));
+        assertEquals("100-999", EvaluationTelemetry.sizeBucket(999));
+        assertEquals("1000-9999", EvaluationTelemetry.sizeBucket(1000));
+        assertEquals("1000000000-9999999999", EvaluationTelemetry.sizeBucket(Integer.MAX_VALUE));
+    }
+
+    private Timer timer(String stage, String sizeBucket) {
+        Timer timer = registry.find(EvaluationTelemetry.STAGE_TIMER)
+            .tag("stage", stage)
+            .tag("negativeSetSize", sizeBucket)
+            .timer();
+        assertNotNull(timer, "No timer for stage " + stage + " and size " + sizeBucket);
+        return timer;
+    }
+}
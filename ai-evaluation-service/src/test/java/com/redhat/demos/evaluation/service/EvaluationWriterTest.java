@@ -0,0 +1,162 @@
+package com.redhat.demos.evaluation.service;
+
+import com.redhat.demos.evaluation.model.ThoughtEvaluation;
+import com.redhat.demos.evaluation.model.ThoughtStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationWriterTest {
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private EvaluationWriter writer;
+
+    @AfterEach
+    public void stopWriter() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    public void testUnavailableDatabaseIsRetriedUntilTheRowCommits() throws Exception {
+        startWriter();
+        failuresLeft.set(3);
+
+        writer.write(evaluation()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(4, connections.get(), "Three failed attempts and one that commits");
+    }
+
+    @Test
+    public void testUnavailableDatabaseIsRetriedUntilShutdown() throws Exception {
+        startWriter();
+        failuresLeft.set(Integer.MAX_VALUE);
+
+        CompletableFuture<Void> written = writer.write(evaluation());
+        while (connections.get() < 20) {
+            Thread.sleep(5);
+        }
+        assertFalse(written.isDone(), "Still retrying after many failed attempts");
+
+        writer.stop();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> written.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SQLException.class, e.getCause());
+        assertTrue(EvaluationWriter.isUnwritten(e.getCause()));
+    }
+
+    @Test
+    public void testUnexpectedFailureDoesNotStopLaterWrites() throws Exception {
+        startWriter();
+        ThoughtEvaluation broken = evaluation();
+        broken.status = null;
+
+        CompletableFuture<Void> failed = writer.write(broken);
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+
+        writer.write(evaluation()).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testRowErrorsAreNotRetried() {
+        assertTrue(EvaluationWriter.isRowError(new SQLException("duplicate key", "23505")));
+        assertTrue(EvaluationWriter.isRowError(new SQLException("invalid json", "22P02")));
+        assertFalse(EvaluationWriter.isRowError(new SQLException("connection refused", "08006")));
+        assertFalse(EvaluationWriter.isRowError(new SQLException("acquisition timeout")));
+        assertFalse(EvaluationWriter.isUnwritten(new SQLException("duplicate key", "23505")));
+        assertFalse(EvaluationWriter.isUnwritten(new IllegalStateException("unexpected")));
+    }
+
+    private void startWriter() {
+        writer = new EvaluationWriter();
+        writer.dataSource = dataSource();
+        writer.registry = new SimpleMeterRegistry();
+        writer.deduplicator = new EvaluationDeduplicator();
+        writer.enabled = true;
+        writer.batchSize = 10;
+        writer.flushInterval = Duration.ofMillis(1);
+        writer.retryBackoff = Duration.ofMillis(1);
+        writer.maxRetryBackoff = Duration.ofMillis(5);
+        writer.start();
+    }
+
+    private static ThoughtEvaluation evaluation() {
+        ThoughtEvaluation evaluation = new ThoughtEvaluation();
+        evaluation.thoughtId = UUID.randomUUID();
+        evaluation.status = ThoughtStatus.APPROVED;
+        evaluation.similarityScore = new BigDecimal("0.1000");
+        evaluation.metadata = "{}";
+        evaluation.contentHash = EvaluationDeduplicator.contentHash("content");
+        return evaluation;
+    }
+
+    /**
+     * A data source that refuses connections while failures are left, then accepts every statement.
+     */
+    private DataSource dataSource() {
+        PreparedStatement statement = stub(PreparedStatement.class, (method, args) ->
+            method.equals("getGeneratedKeys") ? stub(ResultSet.class) : null);
+        Connection connection = stub(Connection.class, (method, args) ->
+            method.equals("prepareStatement") ? statement : null);
+        return stub(DataSource.class, (method, args) -> {
+            if (!method.equals("getConnection")) {
+                return null;
+            }
+            connections.incrementAndGet();
+            if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                throw new SQLException("Connection refused", "08006");
+            }
+            return connection;
+        });
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return stub(type, (method, args) -> null);
+    }
+
+    private static <T> T stub(Class<T> type, StubAnswer answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object value = answer.answer(method.getName(), args);
+            if (value != null) {
+                return value;
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == int[].class) {
+                return new int[0];
+            }
+            if (returnType == boolean.class) {
+                return false;
+            }
+            if (returnType == int.class) {
+                return 0;
+            }
+            if (returnType == long.class) {
+                return 0L;
+            }
+            return null;
+        }));
+    }
+
+    @FunctionalInterface
+    private interface StubAnswer {
+        Object answer(String method, Object[] args) throws SQLException;
+    }
+}
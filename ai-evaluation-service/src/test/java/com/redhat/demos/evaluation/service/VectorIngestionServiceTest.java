@@ -0,0 +1,77 @@
+package com.redhat.demos.evaluation.service;
+
+import com.redhat.demos.evaluation.model.EvaluationVector;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class VectorIngestionServiceTest {
+
+    @Inject
+    VectorIngestionService vectorIngestionService;
+
+    @Inject
+    NegativeVectorIndex negativeVectorIndex;
+
+    @Inject
+    VectorSimilarityService vectorSimilarityService;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    @BeforeEach
+    @Transactional
+    public void setup() {
+        EvaluationVector.deleteAll();
+    }
+
+    @Test
+    public void testOtherInstancesPickUpIngestedVectorsOnTheirNextPoll() throws Exception {
+        ingest("{\"label\":\"old\",\"type\":\"NEGATIVE\",\"text\":\"old negative\"}", false);
+
+        // A second index stands in for another replica: it never sees this instance's invalidations
+        NegativeVectorIndex replica = replica();
+        QuarkusTransaction.requiringNew().run(replica::pollSource);
+        assertEquals("old", replica.index().vectors().label(0));
+
+        ingest("{\"label\":\"new\",\"type\":\"NEGATIVE\",\"text\":\"new negative\"}", true);
+
+        assertEquals("new", QuarkusTransaction.requiringNew().call(() -> negativeVectorIndex.vectors().label(0)));
+        assertEquals("old", replica.index().vectors().label(0));
+
+        QuarkusTransaction.requiringNew().run(replica::pollSource);
+
+        assertEquals(1, replica.index().vectors().size());
+        assertEquals("new", replica.index().vectors().label(0));
+    }
+
+    private NegativeVectorIndex replica() {
+        NegativeVectorIndex replica = new NegativeVectorIndex();
+        replica.transactionRegistry = transactionRegistry;
+        replica.vectorSimilarityService = vectorSimilarityService;
+        replica.indexType = "exact";
+        replica.quantizationType = "none";
+        replica.snapshotPath = Optional.empty();
+        return replica;
+    }
+
+    private void ingest(String ndjson, boolean replace) throws Exception {
+        IngestionJob job = vectorIngestionService.start(
+            new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), replace);
+        for (int attempt = 0; attempt < 100 && !job.status().state().matches("COMPLETED|FAILED"); attempt++) {
+            Thread.sleep(100);
+        }
+        assertEquals("COMPLETED", job.status().state(), () -> job.status().errors().toString());
+    }
+}
@@ -0,0 +1,80 @@
+package com.redhat.demos.evaluation.util;
+
+import com.redhat.demos.evaluation.model.VectorEncoding;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for the binary vector encodings.
+ */
+class VectorCodecTest {
+
+    private static final int DIMENSION = 384;
+
+    @Test
+    void testFloat32RoundTripIsExact() {
+        float[] vector = randomVector(new Random(1));
+
+        byte[] bytes = VectorCodec.encode(vector, VectorEncoding.FLOAT32);
+
+        assertEquals(DIMENSION * Float.BYTES, bytes.length);
+        assertArrayEquals(vector, VectorCodec.decode(bytes, VectorEncoding.FLOAT32));
+    }
+
+    @Test
+    void testFloat32IsLittleEndian() {
+        byte[] bytes = VectorCodec.encode(new float[]{1.0f}, VectorEncoding.FLOAT32);
+
+        // 1.0f is 0x3F800000
+        assertArrayEquals(new byte[]{0x00, 0x00, (byte) 0x80, 0x3F}, bytes);
+    }
+
+    @Test
+    void testFloat16RoundTripWithinPrecision() {
+        float[] vector = randomVector(new Random(2));
+
+        byte[] bytes = VectorCodec.encode(vector, VectorEncoding.FLOAT16);
+
+        assertEquals(DIMENSION * Short.BYTES, bytes.length);
+        assertArrayEquals(vector, VectorCodec.decode(bytes, VectorEncoding.FLOAT16), 1e-3f);
+    }
+
+    @Test
+    void testInt8RoundTripWithinScale() {
+        float[] vector = randomVector(new Random(3));
+
+        byte[] bytes = VectorCodec.encode(vector, VectorEncoding.INT8);
+
+        assertEquals(Float.BYTES + DIMENSION, bytes.length);
+        assertArrayEquals(vector, VectorCodec.decode(bytes, VectorEncoding.INT8), 0.1f / 127);
+    }
+
+    @Test
+    void testDecodeIntoWritesAtOffset() {
+        float[] vector = {0.5f, -0.25f, 0.125f};
+        float[] target = new float[5];
+
+        int written = VectorCodec.decodeInto(VectorCodec.encode(vector, VectorEncoding.FLOAT32),
+            VectorEncoding.FLOAT32, target, 2);
+
+        assertEquals(3, written);
+        assertArrayEquals(new float[]{0.0f, 0.0f, 0.5f, -0.25f, 0.125f}, target);
+    }
+
+    @Test
+    void testInvalidLengthThrows() {
+        assertThrows(IllegalArgumentException.class,
+            () -> VectorCodec.decode(new byte[]{1, 2, 3}, VectorEncoding.FLOAT32));
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = random.nextFloat() * 0.2f - 0.1f;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,72 @@
+package com.redhat.demos.evaluation.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the streaming JSON vector parser and writer.
+ */
+class VectorDataParserTest {
+
+    @Test
+    void testParseEmbeddingArray() {
+        float[] vector = VectorDataParser.parseVectorData("{\"embedding\": [0.1, -0.2, 3, 4e-2]}");
+
+        assertArrayEquals(new float[]{0.1f, -0.2f, 3.0f, 0.04f}, vector);
+    }
+
+    @Test
+    void testParseSkipsOtherFields() {
+        float[] vector = VectorDataParser.parseVectorData(
+            "{\"model\": {\"name\": \"x\", \"dims\": [1, 2]}, \"embedding\": [0.5, 0.25]}");
+
+        assertArrayEquals(new float[]{0.5f, 0.25f}, vector);
+    }
+
+    @Test
+    void testParseGrowsBeyondInitialCapacity() {
+        float[] original = new float[1536];
+        for (int i = 0; i < original.length; i++) {
+            original[i] = i / 1536.0f;
+        }
+
+        assertArrayEquals(original, VectorDataParser.parseVectorData(VectorDataParser.toJsonString(original)));
+    }
+
+    @Test
+    void testParseIntoCallerSuppliedArray() {
+        float[] target = new float[4];
+
+        int written = VectorDataParser.parseVectorData("{\"embedding\": [1.5, 2.5]}", target, 1);
+
+        assertEquals(2, written);
+        assertArrayEquals(new float[]{0.0f, 1.5f, 2.5f, 0.0f}, target);
+    }
+
+    @Test
+    void testParseIntoTooSmallArrayThrows() {
+        assertThrows(RuntimeException.class,
+            () -> VectorDataParser.parseVectorData("{\"embedding\": [1, 2, 3]}", new float[2], 0));
+    }
+
+    @Test
+    void testParseMissingEmbeddingThrows() {
+        assertThrows(RuntimeException.class, () -> VectorDataParser.parseVectorData("{\"vector\": [1, 2]}"));
+        assertThrows(RuntimeException.class, () -> VectorDataParser.parseVectorData("{\"embedding\": [\"a\"]}"));
+    }
+
+    @Test
+    void testWriteJsonStreamsSameContentAsString() {
+        float[] vector = {0.1f, -0.2f, 0.3f};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        VectorDataParser.writeJson(vector, out);
+
+        assertEquals(VectorDataParser.toJsonString(vector), out.toString(StandardCharsets.UTF_8));
+        assertArrayEquals(vector, VectorDataParser.parseVectorData(new String(VectorDataParser.toJsonBytes(vector), StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,66 @@
+package com.redhat.demos.thoughts.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.redhat.demos.thoughts.model.Thought;
+import com.redhat.demos.thoughts.model.ThoughtStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Payload of a thought event on the thoughts.events topic, as described by
+ * {@code schemas/thought-event-v1.json}. Carries only what consumers act on, rather than the whole entity;
+ * a DELETED event carries no content. Fields may be added within a version, but removing or changing
+ * one requires a new {@link #CURRENT_VERSION}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ThoughtEventDTO {
+
+    /** Schema version written by this producer. */
+    public static final int CURRENT_VERSION = 1;
+
+    @JsonProperty("version")
+    public int version;
+
+    @JsonProperty("eventType")
+    public String eventType;
+
+    @JsonProperty("id")
+    public UUID id;
+
+    @JsonProperty("content")
+    public String content;
+
+    @JsonProperty("contentHash")
+    public String contentHash;
+
+    @JsonProperty("author")
+    public String author;
+
+    @JsonProperty("authorBio")
+    public String authorBio;
+
+    @JsonProperty("status")
+    public ThoughtStatus status;
+
+    @JsonProperty("timestamp")
+    public LocalDateTime timestamp;
+
+    public ThoughtEventDTO() {
+    }
+
+    public ThoughtEventDTO(String eventType, Thought thought, String contentHash) {
+        this.version = CURRENT_VERSION;
+        this.eventType = eventType;
+        this.id = thought.id;
+        this.author = thought.author;
+        this.authorBio = thought.authorBio;
+        this.status = thought.status;
+        this.timestamp = LocalDateTime.now();
+        if (!"DELETED".equals(eventType)) {
+            this.content = thought.content;
+            this.contentHash = contentHash;
+        }
+    }
+}
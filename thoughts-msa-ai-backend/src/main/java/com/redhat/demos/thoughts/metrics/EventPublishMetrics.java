@@ -0,0 +1,65 @@
+package com.redhat.demos.thoughts.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metrics for thought events sent to Kafka by the outbox relay. Sends happen after the request has
+ * returned, so failures only show up here and in the log.
+ */
+@ApplicationScoped
+public class EventPublishMetrics {
+
+    @Inject
+    MeterRegistry registry;
+
+    private Timer ackTimer;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public void init() {
+        if (ackTimer == null) {
+            ackTimer = Timer.builder("thoughts.events.publish.time")
+                    .description("Time from sending a thought event to its broker acknowledgement")
+                    .register(registry);
+
+            registry.gauge("thoughts.events.publish.pending", pending);
+        }
+    }
+
+    /**
+     * Records a send handed to the emitter.
+     *
+     * @return the start time to pass to {@link #recordPublished}
+     */
+    public long recordSending() {
+        init();
+        pending.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void recordPublished(String eventType, long startNanos) {
+        pending.decrementAndGet();
+        ackTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("thoughts.events.published.total")
+                .description("Total number of thought events acknowledged by the broker")
+                .tag("type", eventType)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordFailure(String eventType, Throwable failure) {
+        pending.decrementAndGet();
+        Counter.builder("thoughts.events.publish.failure.total")
+                .description("Total number of thought events that could not be sent, by event type and exception")
+                .tag("type", eventType)
+                .tag("exception", failure.getClass().getSimpleName())
+                .register(registry)
+                .increment();
+    }
+}
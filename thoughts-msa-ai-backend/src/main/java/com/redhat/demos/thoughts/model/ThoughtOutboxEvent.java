@@ -0,0 +1,48 @@
+package com.redhat.demos.thoughts.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A thought event waiting to be relayed to Kafka. Written in the same transaction as the thought change
+ * it describes and deleted by {@link com.redhat.demos.thoughts.service.OutboxRelay} once the broker has
+ * acknowledged it.
+ */
+@Entity
+@Table(name = "thought_outbox")
+public class ThoughtOutboxEvent extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", updatable = false, nullable = false)
+    public Long id;
+
+    @Column(name = "thought_id", nullable = false, updatable = false)
+    public UUID thoughtId;
+
+    @Column(name = "event_type", nullable = false, updatable = false, length = 20)
+    public String eventType;
+
+    @Column(name = "event_version", nullable = false, updatable = false)
+    public int eventVersion;
+
+    @Column(name = "content_hash", updatable = false, length = 64)
+    public String contentHash;
+
+    @Column(name = "previous_content_hash", updatable = false, length = 64)
+    public String previousContentHash;
+
+    @Column(name = "payload", nullable = false, updatable = false, columnDefinition = "TEXT")
+    public String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    public LocalDateTime createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -59,6 +59,7 @@ public class ThoughtResource {
         }
 
         Thought thought = existingThought.get();
+        String previousContent = thought.content;
         thought.content = updatedThought.content;
         if (updatedThought.status != null) {
             thought.status = updatedThought.status;
@@ -70,7 +71,7 @@ public class ThoughtResource {
             thought.authorBio = updatedThought.authorBio;
         }
         thought.persist();
-        eventService.publishThoughtUpdated(thought);
+        eventService.publishThoughtUpdated(thought, previousContent);
 
         return Response.ok(thought).build();
     }
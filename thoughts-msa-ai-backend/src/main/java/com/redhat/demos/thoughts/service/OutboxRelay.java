@@ -0,0 +1,350 @@
+package com.redhat.demos.thoughts.service;
+
+import com.redhat.demos.thoughts.metrics.EventPublishMetrics;
+import com.redhat.demos.thoughts.model.ThoughtOutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.reactive.messaging.MutinyEmitter;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.OnOverflow;
+import org.jboss.logging.Logger;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the {@code thought_outbox} table to Kafka.
+ * Each batch claims the oldest rows with {@code FOR UPDATE SKIP LOCKED}, sends them, waits for the
+ * broker to acknowledge all of them and deletes them in the same transaction. Several instances can
+ * drain the table at once without claiming the same rows, and rows whose send fails stay locked only
+ * until the rollback, to be sent again by the next batch: delivery is at least once, which consumers
+ * already handle through the content hash. Events of one thought are sent in order by one instance, but
+ * two instances draining at once may interleave events of the same thought.
+ * The relay drains as soon as an outbox write commits and polls the table otherwise, so events left by
+ * a failed send or another instance are picked up too.
+ * When some sends of a batch fail while others are acknowledged, the failing rows have the attempt counted;
+ * after {@code max-attempts} a row is parked (no longer claimed) so it cannot hold back the rows after it.
+ * A batch in which no send is acknowledged looks like a broker outage rather than bad rows and is not counted.
+ */
+@ApplicationScoped
+public class OutboxRelay {
+
+    private static final Logger LOG = Logger.getLogger(OutboxRelay.class);
+
+    private static final String CLAIM_SQL =
+        "SELECT id, thought_id, event_type, event_version, content_hash, previous_content_hash, payload "
+            + "FROM thought_outbox WHERE parked_at IS NULL ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String DELETE_SQL = "DELETE FROM thought_outbox WHERE id = ANY (?)";
+    private static final String FAILED_SQL =
+        "UPDATE thought_outbox SET attempts = attempts + 1, last_error = ?, "
+            + "parked_at = CASE WHEN attempts + 1 >= ? THEN now() END WHERE id = ? RETURNING parked_at IS NOT NULL";
+    private static final String BACKLOG_SQL =
+        "SELECT count(*) FILTER (WHERE parked_at IS NULL), min(created_at) FILTER (WHERE parked_at IS NULL), "
+            + "count(*) FILTER (WHERE parked_at IS NOT NULL) FROM thought_outbox";
+
+    @Channel("thoughts-events")
+    @OnOverflow(OnOverflow.Strategy.BUFFER)
+    MutinyEmitter<String> thoughtsEmitter;
+
+    @Inject
+    DataSource dataSource;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    EventPublishMetrics publishMetrics;
+
+    @ConfigProperty(name = "outbox.relay.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "outbox.relay.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "outbox.relay.poll-interval", defaultValue = "1s")
+    Duration pollInterval;
+
+    @ConfigProperty(name = "outbox.relay.ack-timeout", defaultValue = "30s")
+    Duration ackTimeout;
+
+    @ConfigProperty(name = "outbox.relay.max-attempts", defaultValue = "5")
+    int maxAttempts;
+
+    private final Semaphore wakeUps = new Semaphore(0);
+    private final AtomicLong highWaterMark = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+    private final AtomicLong oldestPendingMillis = new AtomicLong();
+    private Thread relay;
+    private volatile boolean running;
+    private Counter relayed;
+    private Counter failedBatches;
+    private Counter parkedEvents;
+    private Timer batchTimer;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            LOG.info("Outbox relay disabled, thought events stay in the outbox");
+            return;
+        }
+        relayed = Counter.builder("thoughts.outbox.relayed.total")
+            .description("Total number of outbox events sent and acknowledged by the broker")
+            .register(registry);
+        failedBatches = Counter.builder("thoughts.outbox.relay.failure.total")
+            .description("Total number of outbox batches rolled back to be sent again")
+            .register(registry);
+        parkedEvents = Counter.builder("thoughts.outbox.parked.total")
+            .description("Total number of outbox events parked after max-attempts failed sends")
+            .register(registry);
+        batchTimer = Timer.builder("thoughts.outbox.relay.batch.time")
+            .description("Time to claim, send and delete one batch of outbox events")
+            .register(registry);
+        Gauge.builder("thoughts.outbox.pending", backlog, AtomicLong::get)
+            .description("Outbox events not yet relayed and not parked, as of the last poll")
+            .register(registry);
+        Gauge.builder("thoughts.outbox.parked", parked, AtomicLong::get)
+            .description("Outbox events parked after repeated failed sends, as of the last poll")
+            .register(registry);
+        Gauge.builder("thoughts.outbox.lag.seconds", oldestPendingMillis, this::lagSeconds)
+            .description("Age of the oldest outbox event not yet relayed, as of the last poll")
+            .register(registry);
+        Gauge.builder("thoughts.outbox.high.water.mark", highWaterMark, AtomicLong::get)
+            .description("Highest outbox id relayed by this instance")
+            .register(registry);
+
+        running = true;
+        relay = Thread.ofPlatform().daemon().name("thought-outbox-relay").start(this::relayLoop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (relay == null) {
+            return;
+        }
+        relay.interrupt();
+        try {
+            relay.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wakes the relay once an outbox write has committed, instead of waiting for the next poll.
+     */
+    void onOutboxWrite(@Observes(during = TransactionPhase.AFTER_SUCCESS) ThoughtOutboxEvent written) {
+        wakeUps.release();
+    }
+
+    /**
+     * Returns the highest outbox id relayed by this instance, or 0 before the first batch.
+     */
+    public long highWaterMark() {
+        return highWaterMark.get();
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                wakeUps.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+                wakeUps.drainPermits();
+                // A full batch means there may be more
+                while (running && drainBatch() == batchSize) {
+                    wakeUps.drainPermits();
+                }
+                refreshBacklog();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOG.errorf(e, "Outbox relay iteration failed");
+            }
+        }
+    }
+
+    /**
+     * Claims, sends and deletes one batch of outbox events.
+     *
+     * @return the number of events relayed, 0 if the outbox was empty or the batch was rolled back
+     */
+    private int drainBatch() throws InterruptedException {
+        Timer.Sample sample = Timer.start(registry);
+        List<Long> ids = new ArrayList<>(batchSize);
+        List<CompletableFuture<Void>> acks = new ArrayList<>(batchSize);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement claim = connection.prepareStatement(CLAIM_SQL)) {
+                    claim.setInt(1, batchSize);
+                    try (ResultSet rows = claim.executeQuery()) {
+                        while (rows.next()) {
+                            ids.add(rows.getLong(1));
+                            acks.add(send(rows));
+                        }
+                    }
+                }
+                if (ids.isEmpty()) {
+                    connection.rollback();
+                    return 0;
+                }
+
+                CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new))
+                    .get(ackTimeout.toMillis(), TimeUnit.MILLISECONDS);
+
+                try (PreparedStatement delete = connection.prepareStatement(DELETE_SQL)) {
+                    delete.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+                    delete.executeUpdate();
+                }
+                connection.commit();
+            } catch (SQLException | ExecutionException | TimeoutException | RuntimeException e) {
+                connection.rollback();
+                failedBatches.increment();
+                LOG.warnf(e, "Failed to relay %d outbox events, they will be sent again", ids.size());
+                recordFailures(connection, ids, acks);
+                return 0;
+            } catch (InterruptedException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            failedBatches.increment();
+            LOG.warnf(e, "Could not reach the outbox");
+            return 0;
+        }
+
+        sample.stop(batchTimer);
+        relayed.increment(ids.size());
+        highWaterMark.accumulateAndGet(ids.getLast(), Math::max);
+        LOG.debugf("Relayed %d outbox events up to id %d", ids.size(), ids.getLast());
+        return ids.size();
+    }
+
+    /**
+     * Counts the attempt against each row whose send failed or was not acknowledged in time, provided
+     * another send of the batch was acknowledged, and parks rows that reached max-attempts.
+     */
+    private void recordFailures(Connection connection, List<Long> ids, List<CompletableFuture<Void>> acks) {
+        List<Integer> failed = new ArrayList<>();
+        boolean acknowledged = false;
+        for (int i = 0; i < acks.size(); i++) {
+            if (acks.get(i).isDone() && !acks.get(i).isCompletedExceptionally()) {
+                acknowledged = true;
+            } else {
+                failed.add(i);
+            }
+        }
+        if (!acknowledged || failed.isEmpty()) {
+            return;
+        }
+
+        int parkedNow = 0;
+        try (PreparedStatement update = connection.prepareStatement(FAILED_SQL)) {
+            for (int i : failed) {
+                CompletableFuture<Void> ack = acks.get(i);
+                String error = ack.isCompletedExceptionally()
+                    ? String.valueOf(ack.exceptionNow())
+                    : "Not acknowledged within " + ackTimeout;
+                update.setString(1, error);
+                update.setInt(2, maxAttempts);
+                update.setLong(3, ids.get(i));
+                try (ResultSet row = update.executeQuery()) {
+                    if (row.next() && row.getBoolean(1)) {
+                        parkedNow++;
+                        LOG.errorf("Parked outbox event %d after %d failed sends: %s", ids.get(i), maxAttempts, error);
+                    }
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            LOG.warnf(e, "Could not record %d failed outbox sends", failed.size());
+            return;
+        }
+        parkedEvents.increment(parkedNow);
+    }
+
+    private CompletableFuture<Void> send(ResultSet row) throws SQLException {
+        String thoughtId = row.getString(2);
+        String eventType = row.getString(3);
+
+        RecordHeaders headers = new RecordHeaders();
+        addHeader(headers, ThoughtEventService.HEADER_EVENT_TYPE, eventType);
+        addHeader(headers, ThoughtEventService.HEADER_THOUGHT_ID, thoughtId);
+        addHeader(headers, ThoughtEventService.HEADER_EVENT_VERSION, String.valueOf(row.getInt(4)));
+        addHeader(headers, ThoughtEventService.HEADER_CONTENT_HASH, row.getString(5));
+        addHeader(headers, ThoughtEventService.HEADER_PREVIOUS_CONTENT_HASH, row.getString(6));
+
+        Message<String> message = Message.of(row.getString(7))
+            .addMetadata(OutgoingKafkaRecordMetadata.<String>builder()
+                .withKey(thoughtId)
+                .withHeaders(headers)
+                .build());
+
+        long start = publishMetrics.recordSending();
+        CompletableFuture<Void> sent;
+        try {
+            sent = thoughtsEmitter.sendMessage(message).subscribeAsCompletionStage();
+        } catch (RuntimeException e) {
+            // Rejected before reaching the producer: fail this row only, so the rest of the batch is still sent
+            sent = CompletableFuture.failedFuture(e);
+        }
+        return sent.whenComplete((ignored, failure) -> {
+            if (failure == null) {
+                publishMetrics.recordPublished(eventType, start);
+            } else {
+                publishMetrics.recordFailure(eventType, failure);
+            }
+        });
+    }
+
+    private void refreshBacklog() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(BACKLOG_SQL);
+             ResultSet rows = statement.executeQuery()) {
+            rows.next();
+            backlog.set(rows.getLong(1));
+            parked.set(rows.getLong(3));
+            Timestamp oldest = rows.getTimestamp(2);
+            oldestPendingMillis.set(oldest == null ? 0 : oldest.getTime());
+        } catch (SQLException e) {
+            LOG.warnf(e, "Could not read the outbox backlog");
+        }
+    }
+
+    private double lagSeconds(AtomicLong oldestMillis) {
+        long oldest = oldestMillis.get();
+        return oldest == 0 ? 0.0 : Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    private static void addHeader(RecordHeaders headers, String name, String value) {
+        if (value != null) {
+            headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
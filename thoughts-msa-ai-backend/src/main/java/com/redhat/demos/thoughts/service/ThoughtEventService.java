@@ -1,33 +1,104 @@
 package com.redhat.demos.thoughts.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redhat.demos.thoughts.dto.ThoughtEventDTO;
 import com.redhat.demos.thoughts.model.Thought;
-import io.smallrye.reactive.messaging.MutinyEmitter;
+import com.redhat.demos.thoughts.model.ThoughtOutboxEvent;
 import jakarta.enterprise.context.ApplicationScoped;
-import org.eclipse.microprofile.reactive.messaging.Channel;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
 import org.jboss.logging.Logger;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Publishes thought events as {@link ThoughtEventDTO} payloads keyed by thought id, so all events of a
+ * thought land on the same partition in order. Each record carries its event type, thought id, schema
+ * version and the hash of the thought content in Kafka headers; updates also carry the hash of the
+ * content before the update, so consumers can tell content edits from status or author edits, and skip
+ * events they have already handled, without parsing the payload or keeping state of their own.
+ * Events are written to the {@code thought_outbox} table in the transaction of the thought change, and
+ * sent by the {@link OutboxRelay} once it commits: an event is published if and only if its change is
+ * committed, and write requests never wait on the broker.
+ */
 @ApplicationScoped
 public class ThoughtEventService {
 
     private static final Logger LOG = Logger.getLogger(ThoughtEventService.class);
 
-    @Channel("thoughts-events")
-    MutinyEmitter<Thought> thoughtsEmitter;
+    /** Header with the event type: CREATED, UPDATED or DELETED. */
+    public static final String HEADER_EVENT_TYPE = "thought-event-type";
+    /** Header with the hex SHA-256 of the thought content. */
+    public static final String HEADER_CONTENT_HASH = "thought-content-hash";
+    /** Header with the hex SHA-256 of the content before an update. */
+    public static final String HEADER_PREVIOUS_CONTENT_HASH = "thought-previous-content-hash";
+    /** Header with the thought id. */
+    public static final String HEADER_THOUGHT_ID = "thought-id";
+    /** Header with the payload schema version. */
+    public static final String HEADER_EVENT_VERSION = "thought-event-version";
+
+    @Inject
+    ObjectMapper objectMapper;
 
+    @Inject
+    Event<ThoughtOutboxEvent> outboxWrites;
+
+    @Transactional(Transactional.TxType.MANDATORY)
     public void publishThoughtCreated(Thought thought) {
-        publishEvent(thought, "CREATED");
+        publishEvent(thought, "CREATED", null);
     }
 
-    public void publishThoughtUpdated(Thought thought) {
-        publishEvent(thought, "UPDATED");
+    /**
+     * @param thought the updated thought
+     * @param previousContent the content before the update
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void publishThoughtUpdated(Thought thought, String previousContent) {
+        publishEvent(thought, "UPDATED", contentHash(previousContent));
     }
 
+    @Transactional(Transactional.TxType.MANDATORY)
     public void publishThoughtDeleted(Thought thought) {
-        publishEvent(thought, "DELETED");
+        publishEvent(thought, "DELETED", null);
     }
 
-    private void publishEvent(Thought thought, String eventType) {
-        thoughtsEmitter.sendAndAwait(thought);
-        LOG.infof("Published %s event for thought: %s", eventType, thought.id);
+    /**
+     * Returns the hex SHA-256 of the UTF-8 content, or null for null content.
+     */
+    public static String contentHash(String content) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void publishEvent(Thought thought, String eventType, String previousContentHash) {
+        ThoughtEventDTO event = new ThoughtEventDTO(eventType, thought, contentHash(thought.content));
+
+        ThoughtOutboxEvent outbox = new ThoughtOutboxEvent();
+        outbox.thoughtId = thought.id;
+        outbox.eventType = eventType;
+        outbox.eventVersion = event.version;
+        outbox.contentHash = event.contentHash;
+        outbox.previousContentHash = previousContentHash;
+        try {
+            outbox.payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + eventType + " event for thought " + thought.id, e);
+        }
+        outbox.persist();
+
+        outboxWrites.fire(outbox);
+        LOG.debugf("Queued %s event for thought: %s", eventType, thought.id);
     }
 }
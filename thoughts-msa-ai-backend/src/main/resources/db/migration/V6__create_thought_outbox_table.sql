@@ -0,0 +1,19 @@
+-- Migration: Create thought_outbox table
+-- Description: Creates the transactional outbox for thought events, written with each thought change
+--              and drained to Kafka by the outbox relay
+-- Reversible: Yes (see rollback script)
+
+-- Create thought_outbox table; rows are relayed in id order
+CREATE TABLE thought_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    thought_id UUID NOT NULL,
+    event_type VARCHAR(20) NOT NULL CHECK (event_type IN ('CREATED', 'UPDATED', 'DELETED')),
+    event_version INTEGER NOT NULL,
+    content_hash VARCHAR(64),
+    previous_content_hash VARCHAR(64),
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+-- Rollback script (to be executed manually if needed):
+-- DROP TABLE IF EXISTS thought_outbox;
@@ -0,0 +1,16 @@
+-- Migration: Track failed sends of outbox events
+-- Description: Counts failed sends per outbox row and parks rows that keep failing, so one event the
+--              broker always rejects does not hold back the rows after it
+-- Reversible: Yes (see rollback script)
+
+ALTER TABLE thought_outbox
+    ADD COLUMN attempts INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN last_error TEXT,
+    ADD COLUMN parked_at TIMESTAMP;
+
+-- The relay only claims rows that are not parked, in id order
+CREATE INDEX idx_thought_outbox_pending ON thought_outbox (id) WHERE parked_at IS NULL;
+
+-- Rollback script (to be executed manually if needed):
+-- DROP INDEX IF EXISTS idx_thought_outbox_pending;
+-- ALTER TABLE thought_outbox DROP COLUMN parked_at, DROP COLUMN last_error, DROP COLUMN attempts;
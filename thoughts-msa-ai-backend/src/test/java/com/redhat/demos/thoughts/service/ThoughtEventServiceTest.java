@@ -1,17 +1,34 @@
 package com.redhat.demos.thoughts.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redhat.demos.thoughts.dto.ThoughtEventDTO;
 import com.redhat.demos.thoughts.model.Thought;
+import com.redhat.demos.thoughts.model.ThoughtOutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import io.smallrye.reactive.messaging.kafka.api.OutgoingKafkaRecordMetadata;
 import io.smallrye.reactive.messaging.memory.InMemoryConnector;
 import io.smallrye.reactive.messaging.memory.InMemorySink;
 import jakarta.enterprise.inject.Any;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import org.apache.kafka.common.header.Header;
+import org.eclipse.microprofile.reactive.messaging.Message;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
 import static io.restassured.RestAssured.given;
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
 
 @QuarkusTest
@@ -21,16 +38,29 @@ public class ThoughtEventServiceTest {
     @Any
     InMemoryConnector connector;
 
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    ThoughtEventService eventService;
+
+    @Inject
+    OutboxRelay relay;
+
     @BeforeEach
-    @Transactional
     public void setup() {
-        Thought.deleteAll();
+        QuarkusTransaction.requiringNew().run(Thought::deleteAll);
+        // Let events of earlier tests reach the sink before clearing it
+        await().atMost(5, TimeUnit.SECONDS).until(() -> outboxSize() == 0);
         connector.sink("thoughts-events").clear();
     }
 
     @Test
     public void testEventPublishedOnCreate() {
-        InMemorySink<Thought> thoughtsSink = connector.sink("thoughts-events");
+        InMemorySink<String> thoughtsSink = connector.sink("thoughts-events");
 
         given()
                 .contentType(ContentType.JSON)
@@ -40,15 +70,15 @@ public class ThoughtEventServiceTest {
                 .then()
                 .statusCode(201);
 
-        assertEquals(1, thoughtsSink.received().size());
-        Thought published = thoughtsSink.received().get(0).getPayload();
+        awaitReceived(thoughtsSink, 1);
+        ThoughtEventDTO published = payload(thoughtsSink.received().get(0));
         assertEquals("Event publishing test for create operation", published.content);
     }
 
     @Test
     public void testEventPublishedOnUpdate() {
         Thought thought = createTestThought("Original content for update event test");
-        InMemorySink<Thought> thoughtsSink = connector.sink("thoughts-events");
+        InMemorySink<String> thoughtsSink = connector.sink("thoughts-events");
         thoughtsSink.clear();
 
         given()
@@ -59,15 +89,15 @@ public class ThoughtEventServiceTest {
                 .then()
                 .statusCode(200);
 
-        assertEquals(1, thoughtsSink.received().size());
-        Thought published = thoughtsSink.received().get(0).getPayload();
+        awaitReceived(thoughtsSink, 1);
+        ThoughtEventDTO published = payload(thoughtsSink.received().get(0));
         assertEquals("Updated content for event publishing", published.content);
     }
 
     @Test
     public void testEventPublishedOnDelete() {
         Thought thought = createTestThought("Content for delete event test");
-        InMemorySink<Thought> thoughtsSink = connector.sink("thoughts-events");
+        InMemorySink<String> thoughtsSink = connector.sink("thoughts-events");
         thoughtsSink.clear();
 
         given()
@@ -76,12 +106,17 @@ public class ThoughtEventServiceTest {
                 .then()
                 .statusCode(204);
 
-        assertEquals(1, thoughtsSink.received().size());
+        awaitReceived(thoughtsSink, 1);
+        ThoughtEventDTO published = payload(thoughtsSink.received().get(0));
+        assertEquals("DELETED", published.eventType);
+        assertEquals(thought.id, published.id);
+        assertNull(published.content, "Deleted events should not carry the content");
+        assertNull(published.contentHash);
     }
 
     @Test
     public void testEventIncludesAuthorFieldsOnCreate() {
-        InMemorySink<Thought> thoughtsSink = connector.sink("thoughts-events");
+        InMemorySink<String> thoughtsSink = connector.sink("thoughts-events");
 
         given()
                 .contentType(ContentType.JSON)
@@ -91,8 +126,8 @@ public class ThoughtEventServiceTest {
                 .then()
                 .statusCode(201);
 
-        assertEquals(1, thoughtsSink.received().size());
-        Thought published = thoughtsSink.received().get(0).getPayload();
+        awaitReceived(thoughtsSink, 1);
+        ThoughtEventDTO published = payload(thoughtsSink.received().get(0));
         assertEquals("Testing author fields in Kafka event payload", published.content);
         assertEquals("Marcus Aurelius", published.author);
         assertEquals("Roman Emperor and Stoic philosopher", published.authorBio);
@@ -100,7 +135,7 @@ public class ThoughtEventServiceTest {
 
     @Test
     public void testEventIncludesDefaultAuthorWhenNotProvided() {
-        InMemorySink<Thought> thoughtsSink = connector.sink("thoughts-events");
+        InMemorySink<String> thoughtsSink = connector.sink("thoughts-events");
 
         given()
                 .contentType(ContentType.JSON)
@@ -110,13 +145,192 @@ public class ThoughtEventServiceTest {
                 .then()
                 .statusCode(201);
 
-        assertEquals(1, thoughtsSink.received().size());
-        Thought published = thoughtsSink.received().get(0).getPayload();
+        awaitReceived(thoughtsSink, 1);
+        ThoughtEventDTO published = payload(thoughtsSink.received().get(0));
         assertEquals("Testing default author in Kafka event payload", published.content);
         assertEquals("Unknown", published.author);
         assertEquals("Unknown", published.authorBio);
     }
 
+    @Test
+    public void testEventHeadersCarryTypeAndContentHash() {
+        InMemorySink<String> thoughtsSink = connector.sink("thoughts-events");
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"content\": \"Headers carry the event type and content hash\"}")
+                .when()
+                .post("/thoughts")
+                .then()
+                .statusCode(201);
+
+        awaitReceived(thoughtsSink, 1);
+        Message<String> message = thoughtsSink.received().get(0);
+        assertEquals("CREATED", header(message, ThoughtEventService.HEADER_EVENT_TYPE));
+        assertEquals(ThoughtEventService.contentHash("Headers carry the event type and content hash"),
+                header(message, ThoughtEventService.HEADER_CONTENT_HASH));
+        assertNull(header(message, ThoughtEventService.HEADER_PREVIOUS_CONTENT_HASH));
+    }
+
+    @Test
+    public void testUpdateHeadersTellContentEditsFromOtherEdits() {
+        Thought thought = createTestThought("Content that stays the same on edit");
+        InMemorySink<String> thoughtsSink = connector.sink("thoughts-events");
+        thoughtsSink.clear();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"content\": \"Content that stays the same on edit\", \"author\": \"Seneca\"}")
+                .when()
+                .put("/thoughts/" + thought.id)
+                .then()
+                .statusCode(200);
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"content\": \"Content that changed on the second edit\"}")
+                .when()
+                .put("/thoughts/" + thought.id)
+                .then()
+                .statusCode(200);
+
+        awaitReceived(thoughtsSink, 2);
+        Message<String> authorEdit = thoughtsSink.received().get(0);
+        assertEquals("UPDATED", header(authorEdit, ThoughtEventService.HEADER_EVENT_TYPE));
+        assertEquals(header(authorEdit, ThoughtEventService.HEADER_PREVIOUS_CONTENT_HASH),
+                header(authorEdit, ThoughtEventService.HEADER_CONTENT_HASH));
+
+        Message<String> contentEdit = thoughtsSink.received().get(1);
+        assertNotEquals(header(contentEdit, ThoughtEventService.HEADER_PREVIOUS_CONTENT_HASH),
+                header(contentEdit, ThoughtEventService.HEADER_CONTENT_HASH));
+    }
+
+    @Test
+    public void testEventIsKeyedByThoughtIdAndVersioned() {
+        InMemorySink<String> thoughtsSink = connector.sink("thoughts-events");
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"content\": \"Events are keyed by the thought id\"}")
+                .when()
+                .post("/thoughts")
+                .then()
+                .statusCode(201);
+
+        awaitReceived(thoughtsSink, 1);
+        Message<String> message = thoughtsSink.received().get(0);
+        ThoughtEventDTO published = payload(message);
+        assertEquals(ThoughtEventDTO.CURRENT_VERSION, published.version);
+        assertEquals("CREATED", published.eventType);
+        assertNotNull(published.timestamp);
+        assertEquals(ThoughtEventService.contentHash(published.content), published.contentHash);
+        assertEquals(published.id.toString(), message.getMetadata(OutgoingKafkaRecordMetadata.class)
+                .map(OutgoingKafkaRecordMetadata::getKey).orElse(null));
+        assertEquals(published.id.toString(), header(message, ThoughtEventService.HEADER_THOUGHT_ID));
+        assertEquals(String.valueOf(ThoughtEventDTO.CURRENT_VERSION),
+                header(message, ThoughtEventService.HEADER_EVENT_VERSION));
+    }
+
+    @Test
+    public void testEventPayloadMatchesPublishedSchema() throws Exception {
+        Thought thought = createTestThought("Payload fields match the published schema");
+        JsonNode schema;
+        try (InputStream in = getClass().getResourceAsStream("/schemas/thought-event-v1.json")) {
+            schema = objectMapper.readTree(in);
+        }
+        Set<String> properties = new HashSet<>();
+        schema.get("properties").fieldNames().forEachRemaining(properties::add);
+
+        for (String eventType : new String[]{"CREATED", "UPDATED", "DELETED"}) {
+            JsonNode payload = objectMapper.valueToTree(
+                    new ThoughtEventDTO(eventType, thought, ThoughtEventService.contentHash(thought.content)));
+            payload.fieldNames().forEachRemaining(field ->
+                    assertTrue(properties.contains(field), field + " is not in the schema"));
+            schema.get("required").forEach(required ->
+                    assertTrue(payload.has(required.asText()), eventType + " event is missing " + required.asText()));
+        }
+        assertEquals(ThoughtEventDTO.CURRENT_VERSION, schema.get("properties").get("version").get("const").asInt());
+    }
+
+    @Test
+    public void testAcknowledgedEventsAreCounted() {
+        double published = published("CREATED");
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"content\": \"Acknowledged events show up in the metrics\"}")
+                .when()
+                .post("/thoughts")
+                .then()
+                .statusCode(201);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> published("CREATED") >= published + 1);
+        assertEquals(published + 1, published("CREATED"));
+    }
+
+    @Test
+    public void testOutboxIsDrainedOnceEventsAreSent() {
+        InMemorySink<String> thoughtsSink = connector.sink("thoughts-events");
+        long highWaterMark = relay.highWaterMark();
+
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"content\": \"Outbox rows are deleted once relayed\"}")
+                .when()
+                .post("/thoughts")
+                .then()
+                .statusCode(201);
+
+        awaitReceived(thoughtsSink, 1);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> outboxSize() == 0);
+        assertTrue(relay.highWaterMark() > highWaterMark);
+    }
+
+    @Test
+    public void testNoEventPublishedForRolledBackWrite() {
+        InMemorySink<String> thoughtsSink = connector.sink("thoughts-events");
+
+        QuarkusTransaction.requiringNew().run(() -> {
+            Thought thought = new Thought();
+            thought.content = "This write is rolled back with its event";
+            thought.persist();
+            eventService.publishThoughtCreated(thought);
+            QuarkusTransaction.setRollbackOnly();
+        });
+
+        assertEquals(0, outboxSize());
+        await().during(1500, TimeUnit.MILLISECONDS).atMost(3, TimeUnit.SECONDS)
+                .until(() -> thoughtsSink.received().isEmpty());
+    }
+
+    private static void awaitReceived(InMemorySink<String> sink, int count) {
+        await().atMost(5, TimeUnit.SECONDS).until(() -> sink.received().size() >= count);
+        assertEquals(count, sink.received().size());
+    }
+
+    private ThoughtEventDTO payload(Message<String> message) {
+        try {
+            return objectMapper.readValue(message.getPayload(), ThoughtEventDTO.class);
+        } catch (Exception e) {
+            throw new AssertionError("Event payload is not a ThoughtEventDTO: " + message.getPayload(), e);
+        }
+    }
+
+    private static long outboxSize() {
+        return QuarkusTransaction.requiringNew().call(ThoughtOutboxEvent::count);
+    }
+
+    private double published(String eventType) {
+        Counter counter = registry.find("thoughts.events.published.total").tag("type", eventType).counter();
+        return counter == null ? 0.0 : counter.count();
+    }
+
+    private static String header(Message<String> message, String name) {
+        Header header = message.getMetadata(OutgoingKafkaRecordMetadata.class)
+                .map(metadata -> metadata.getHeaders().lastHeader(name))
+                .orElse(null);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
     @Transactional
     protected Thought createTestThought(String content) {
         Thought thought = new Thought();